@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.storage.RebuildableIndex;
+
+import java.util.Objects;
+
+/**
+ * Поднимает контекст без веб-слоя на отдельной файловой БД H2 и один раз наполняет ее данными заданного объема.
+ * База лежит в target/jmh-db и переиспользуется между запусками с теми же параметрами.
+ */
+final class BenchmarkDatabase {
+
+    static final long DIRECTORS = 10_000;
+    static final int FRIENDS_PER_USER = 3;
+
+    private BenchmarkDatabase() {
+    }
+
+    static ConfigurableApplicationContext start(long films, long users, long likes, String... properties) {
+        ConfigurableApplicationContext context = boot(films, users, likes, properties);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films", Long.class);
+        if (Objects.equals(existing, 0L)) {
+            seed(jdbcTemplate, films, users, likes);
+            context.getBeansOfType(RebuildableIndex.class).values().forEach(RebuildableIndex::rebuild);
+        }
+        return context;
+    }
+
+    static ConfigurableApplicationContext boot(long films, long users, long likes, String... properties) {
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(properties)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:file:./target/jmh-db/filmorate-"
+                                + films + "-" + users + "-" + likes,
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, long films, long users, long likes) {
+        seedRows(jdbcTemplate, films, users, likes);
+        jdbcTemplate.execute("""
+                UPDATE films f SET likes_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id)
+                """);
+    }
+
+    /**
+     * Строки, которые есть уже в схеме V2: без счетчиков, их заполняет V3 или {@link #seed}.
+     * Данные строятся set-based запросами из SYSTEM_RANGE, так что наполнение детерминировано и не зависит от JDBC.
+     */
+    static void seedRows(JdbcTemplate jdbcTemplate, long films, long users, long likes) {
+        long likesPerUser = Math.max(1, likes / users);
+        jdbcTemplate.execute("""
+                INSERT INTO users (id, name, login, email, birthday)
+                SELECT X, 'User ' || X, 'user' || X, 'user' || X || '@example.com',
+                       DATEADD('DAY', -MOD(X * 37, 20000), DATE '2005-01-01')
+                FROM SYSTEM_RANGE(1, %d)
+                """.formatted(users));
+        jdbcTemplate.execute("""
+                INSERT INTO films (id, name, description, release, duration, rating_id)
+                SELECT X,
+                       CASE MOD(X, 8)
+                           WHEN 0 THEN 'Star' WHEN 1 THEN 'Night' WHEN 2 THEN 'Love' WHEN 3 THEN 'War'
+                           WHEN 4 THEN 'River' WHEN 5 THEN 'Ghost' WHEN 6 THEN 'City' ELSE 'Dream'
+                       END || ' ' || X,
+                       'Описание фильма ' || X,
+                       DATEADD('DAY', MOD(X * 7919, 36500), DATE '1925-01-01'),
+                       60 + MOD(X, 120),
+                       MOD(X, 5) + 1
+                FROM SYSTEM_RANGE(1, %d)
+                """.formatted(films));
+        jdbcTemplate.execute("""
+                INSERT INTO genres_films (film_id, genre_id)
+                SELECT X, MOD(X, 6) + 1 FROM SYSTEM_RANGE(1, %1$d)
+                UNION ALL
+                SELECT X, MOD(X + 3, 6) + 1 FROM SYSTEM_RANGE(1, %1$d) WHERE MOD(X, 2) = 0
+                """.formatted(films));
+        jdbcTemplate.execute("""
+                INSERT INTO directors (id, name) SELECT X, 'Director ' || X FROM SYSTEM_RANGE(1, %d)
+                """.formatted(DIRECTORS));
+        jdbcTemplate.execute("""
+                INSERT INTO directors_films (director_id, film_id)
+                SELECT MOD(X * 31, %d) + 1, X FROM SYSTEM_RANGE(1, %d)
+                """.formatted(DIRECTORS, films));
+        jdbcTemplate.execute("""
+                INSERT INTO likes (film_id, user_id)
+                SELECT MOD(u * 7919 + k * 9973, %1$d) + 1, u
+                FROM (SELECT (X - 1) / %2$d + 1 AS u, MOD(X - 1, %2$d) AS k FROM SYSTEM_RANGE(1, %3$d))
+                """.formatted(films, likesPerUser, likesPerUser * users));
+        jdbcTemplate.execute("""
+                INSERT INTO friends (user_id, friend_id)
+                SELECT u, f
+                FROM (SELECT u, MOD(u * 7 + k * 104729, %2$d) + 1 AS f
+                      FROM (SELECT (X - 1) / %1$d + 1 AS u, MOD(X - 1, %1$d) AS k FROM SYSTEM_RANGE(1, %3$d)))
+                WHERE u <> f
+                """.formatted(FRIENDS_PER_USER, users, FRIENDS_PER_USER * users));
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH " + (users + 1));
+        jdbcTemplate.execute("ALTER TABLE films ALTER COLUMN id RESTART WITH " + (films + 1));
+        jdbcTemplate.execute("ALTER TABLE directors ALTER COLUMN id RESTART WITH " + (DIRECTORS + 1));
+    }
+
+}
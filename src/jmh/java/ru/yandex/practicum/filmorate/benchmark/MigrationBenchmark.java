@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import javax.sql.DataSource;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запросы к таблицам связей на схеме до ключей и индексов (schema=2, исходная схема) и после всех миграций
+ * (schema=latest) на одинаковых данных. Запросы повторяют пути доступа хранилищ, а не вызывают их:
+ * код приложения требует колонок из V3. Обе базы лежат в target/jmh-db и переиспользуются между запусками.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MigrationBenchmark {
+
+    @Param({"2", "latest"})
+    public String schema;
+
+    @Param("10000")
+    public long films;
+
+    @Param("100000")
+    public long users;
+
+    @Param("1000000")
+    public long likes;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = "jdbc:h2:file:./target/jmh-db/migration-" + schema + "-" + films + "-" + users + "-" + likes;
+        //открытое соединение держит файловую БД открытой, Flyway берет свои соединения отдельно
+        jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(url, "sa", "password", true));
+        DataSource dataSource = new DriverManagerDataSource(url, "sa", "password");
+        Flyway initial = flyway(dataSource, "2");
+        if (Objects.isNull(initial.info().current())) {
+            initial.migrate();
+            BenchmarkDatabase.seedRows(jdbcTemplate, films, users, likes);
+        }
+        //V3 и V4 накатываются на уже заполненную базу, как при обновлении рабочей БД
+        flyway(dataSource, schema).migrate();
+    }
+
+    @State(Scope.Thread)
+    public static class Ids {
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        long next(long bound) {
+            return 1 + random.nextLong(bound);
+        }
+    }
+
+    //лайки пользователя для рекомендаций и общих фильмов
+    @Benchmark
+    public List<Long> likedFilms(Ids ids) {
+        return jdbcTemplate.queryForList("SELECT film_id FROM likes WHERE user_id = ?", Long.class,
+                ids.next(users));
+    }
+
+    @Benchmark
+    public List<Long> commonFriends(Ids ids) {
+        String sql = """
+                SELECT f1.friend_id
+                FROM friends f1
+                JOIN friends f2 ON f1.friend_id = f2.friend_id
+                WHERE f1.user_id = ? AND f2.user_id = ?
+                """;
+        return jdbcTemplate.queryForList(sql, Long.class, ids.next(users), ids.next(users));
+    }
+
+    @Benchmark
+    public List<Long> directorFilms(Ids ids) {
+        return jdbcTemplate.queryForList("SELECT film_id FROM directors_films WHERE director_id = ?", Long.class,
+                ids.next(BenchmarkDatabase.DIRECTORS));
+    }
+
+    @Benchmark
+    public List<Long> filmGenres(Ids ids) {
+        return jdbcTemplate.queryForList("SELECT genre_id FROM genres_films WHERE film_id = ?", Long.class,
+                ids.next(films));
+    }
+
+    //лайк и его отмена: поиск по ключу в MERGE и в DELETE
+    @Benchmark
+    public int likeAndUnlike(Ids ids) {
+        long filmId = ids.next(films);
+        long userId = ids.next(users);
+        int merged = jdbcTemplate.update("MERGE INTO likes KEY (film_id, user_id) VALUES (?, ?)", filmId, userId);
+        jdbcTemplate.update("DELETE FROM likes WHERE film_id = ? AND user_id = ?", filmId, userId);
+        return merged;
+    }
+
+    //каскадное удаление пользователя проверяет все таблицы со ссылкой на users
+    @Benchmark
+    public int createAndDeleteUser() {
+        jdbcTemplate.update("""
+                INSERT INTO users (name, login, email, birthday)
+                VALUES ('Benchmark', 'benchmark', 'benchmark@example.com', DATE '1990-01-01')
+                """);
+        Long id = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+        return jdbcTemplate.update("DELETE FROM users WHERE id = ?", id);
+    }
+
+    private static Flyway flyway(DataSource dataSource, String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .target(target)
+                .load();
+    }
+
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время холодного старта приложения на уже заполненной БД: миграции и построение индексов в памяти.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(3)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    @Param("100000")
+    public long films;
+
+    @Param("1000000")
+    public long users;
+
+    @Param("10000000")
+    public long likes;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        BenchmarkDatabase.start(films, users, likes).close();
+    }
+
+    @Benchmark
+    public long startup() {
+        try (ConfigurableApplicationContext context = BenchmarkDatabase.boot(films, users, likes)) {
+            return context.getStartupDate();
+        }
+    }
+
+}
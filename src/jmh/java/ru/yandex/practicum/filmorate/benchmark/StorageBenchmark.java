@@ -0,0 +1,181 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.friend.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.likes.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность и распределение задержек методов хранилища на заполненной БД.
+ * Объем данных задается параметрами, например -p films=10000 -p users=100000 -p likes=1000000.
+ * Пишущие бенчмарки делают пару изменение-отмена от имени отдельного пользователя, чтобы не менять выборку.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageBenchmark {
+
+    @Param("100000")
+    public long films;
+
+    @Param("1000000")
+    public long users;
+
+    @Param("10000000")
+    public long likes;
+
+    private ConfigurableApplicationContext context;
+    private FilmDbStorage filmDbStorage;
+    private FilmSearchIndex filmSearchIndex;
+    private LikeDbStorage likeDbStorage;
+    private UserDbStorage userDbStorage;
+    private FriendDbStorage friendDbStorage;
+    private Long writerId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start(films, users, likes);
+        filmDbStorage = context.getBean(FilmDbStorage.class);
+        filmSearchIndex = context.getBean(FilmSearchIndex.class);
+        likeDbStorage = context.getBean(LikeDbStorage.class);
+        userDbStorage = context.getBean(UserDbStorage.class);
+        friendDbStorage = context.getBean(FriendDbStorage.class);
+        writerId = userDbStorage.create(User.builder()
+                .email("benchmark@example.com")
+                .login("benchmark")
+                .name("Benchmark")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build()).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Ids {
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        long next(long bound) {
+            return 1 + random.nextLong(bound);
+        }
+    }
+
+    @Benchmark
+    public Film getFilm(Ids ids) {
+        return filmDbStorage.getFilm(ids.next(films));
+    }
+
+    @Benchmark
+    public List<Film> findPage(Ids ids) {
+        return filmDbStorage.findPage(ids.next(films), 100);
+    }
+
+    @Benchmark
+    public List<Film> filmsByDirectorByLikes(Ids ids) {
+        return filmDbStorage.getFilmsListByDirector(ids.next(BenchmarkDatabase.DIRECTORS), "likes", 20, 0);
+    }
+
+    @Benchmark
+    public List<Film> filmsByDirectorByYear(Ids ids) {
+        return filmDbStorage.getFilmsListByDirector(ids.next(BenchmarkDatabase.DIRECTORS), "year", 20, 0);
+    }
+
+    @Benchmark
+    public List<Film> commonFilms(Ids ids) {
+        return filmDbStorage.getCommonPopularFilm(ids.next(users), ids.next(users));
+    }
+
+    @Benchmark
+    public List<Film> topFilms() {
+        return likeDbStorage.topFilms(null, null, 10);
+    }
+
+    @Benchmark
+    public List<Film> topFilmsByGenreAndYear(Ids ids) {
+        return likeDbStorage.topFilms(ids.next(6), 1950 + (int) ids.next(70), 10);
+    }
+
+    @Benchmark
+    public List<Film> searchByTitle() {
+        return filmDbStorage.search("ghost 1", "title");
+    }
+
+    @Benchmark
+    public List<Film> searchByTitleAndDirector() {
+        return filmDbStorage.search("tor 12", "title,director");
+    }
+
+    //запрос короче триграммы: только поиск id по индексу, без загрузки тысяч найденных фильмов
+    @Benchmark
+    public List<Long> searchIndexShortQuery() {
+        return filmSearchIndex.search("77", true, true);
+    }
+
+    @Benchmark
+    public Collection<Film> recommendations(Ids ids) {
+        return userDbStorage.getRecommendations(ids.next(users));
+    }
+
+    @Benchmark
+    public User getUser(Ids ids) {
+        return userDbStorage.getUser(ids.next(users));
+    }
+
+    @Benchmark
+    public List<User> findUserPage(Ids ids) {
+        return userDbStorage.findPage(ids.next(users), 100);
+    }
+
+    @Benchmark
+    public Collection<User> friends(Ids ids) {
+        return friendDbStorage.findFriends(ids.next(users));
+    }
+
+    @Benchmark
+    public Collection<User> commonFriends(Ids ids) {
+        return friendDbStorage.findCommonFriends(ids.next(users), ids.next(users));
+    }
+
+    @Benchmark
+    public void likeAndRemove(Ids ids) {
+        long filmId = ids.next(films);
+        likeDbStorage.like(filmId, writerId);
+        likeDbStorage.removeLike(filmId, writerId);
+    }
+
+    @Benchmark
+    public void addAndDeleteFriend(Ids ids) {
+        long friendId = ids.next(users);
+        friendDbStorage.addFriend(writerId, friendId);
+        friendDbStorage.deleteFriend(writerId, friendId);
+    }
+
+}
@@ -2,7 +2,11 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.helper.EntityVersions;
+import ru.yandex.practicum.filmorate.helper.EntityVersions.Entity;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.service.DirectorService;
 import java.util.List;
@@ -14,15 +18,25 @@ import java.util.List;
 public class DirectorController {
 
     private final DirectorService directorService;
+    private final EntityVersions entityVersions;
 
     @GetMapping
-    public List<Director> findAll() {
-        return directorService.findAll();
+    public ResponseEntity<List<Director>> findAll(WebRequest request) {
+        String etag = entityVersions.listEtag(Entity.DIRECTOR);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(directorService.findAll());
     }
 
     @GetMapping("/{id}")
-    public Director findDirector(@PathVariable Long id) {
-        return directorService.findDirectorById(id);
+    public ResponseEntity<Director> findDirector(@PathVariable Long id, WebRequest request) {
+        directorService.checkExists(id);
+        String etag = entityVersions.etag(Entity.DIRECTOR, id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(directorService.findDirectorById(id));
     }
 
     @PostMapping
@@ -4,6 +4,8 @@ import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,6 +16,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.helper.EntityVersions;
+import ru.yandex.practicum.filmorate.helper.EntityVersions.Entity;
+import ru.yandex.practicum.filmorate.helper.JsonArrayStreamer;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import java.util.Collection;
@@ -27,15 +34,29 @@ import java.util.List;
 public class FilmController {
 
     private final FilmService filmService;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final EntityVersions entityVersions;
 
-    @GetMapping
-    public Collection<Film> findAll() {
-        return filmService.findAll();
+    @GetMapping(params = "!limit")
+    public ResponseEntity<StreamingResponseBody> findAll(@RequestParam(required = false) Long after) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonArrayStreamer.<Film>stream(consumer -> filmService.streamAll(after, consumer)));
+    }
+
+    @GetMapping(params = "limit")
+    public List<Film> findPage(@RequestParam(required = false) Long after, @RequestParam int limit) {
+        return filmService.findPage(after, limit);
     }
 
     @GetMapping("/{id}")
-    public Film findFilm(@PathVariable Long id) {
-        return filmService.findFilm(id);
+    public ResponseEntity<Film> findFilm(@PathVariable Long id, WebRequest request) {
+        filmService.checkExists(id);
+        String etag = entityVersions.etag(Entity.FILM, id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(filmService.findFilm(id));
     }
 
     @PostMapping
@@ -85,8 +106,10 @@ public class FilmController {
 
     @GetMapping("/director/{directorId}")
     public List<Film> getFilmsListByDirectorSortedByLikesOrYear(@PathVariable Long directorId,
-                                                                 @RequestParam String sortBy) {
-        return filmService.getFilmsListByDirector(directorId, sortBy);
+                                                                 @RequestParam String sortBy,
+                                                                 @RequestParam(required = false) Integer limit,
+                                                                 @RequestParam(defaultValue = "0") int offset) {
+        return filmService.getFilmsListByDirector(directorId, sortBy, limit, offset);
     }
 
 }
\ No newline at end of file
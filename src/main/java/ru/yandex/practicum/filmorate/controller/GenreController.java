@@ -1,10 +1,13 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.helper.EntityVersions;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
 import java.util.Collection;
@@ -16,15 +19,16 @@ import java.util.Collection;
 public class GenreController {
 
     private final GenreService genreService;
+    private final EntityVersions entityVersions;
 
     @GetMapping
-    public Collection<Genre> findAll() {
-        return genreService.findAll();
+    public ResponseEntity<Collection<Genre>> findAll(WebRequest request) {
+        return entityVersions.referenceResponse(request, () -> genreService.findAll());
     }
 
     @GetMapping("/{id}")
-    public Genre findGenre(@PathVariable Long id) {
-        return genreService.findGenre(id);
+    public ResponseEntity<Genre> findGenre(@PathVariable Long id, WebRequest request) {
+        return entityVersions.referenceResponse(request, () -> genreService.findGenre(id));
     }
 
 }
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.service.ImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@SuppressWarnings("unused")
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+public class ImportController {
+
+    private final ImportService importService;
+
+    @PostMapping("/films")
+    public ImportReport importFilms(InputStream body) throws IOException {
+        return importService.importFilms(body);
+    }
+
+    @PostMapping("/users")
+    public ImportReport importUsers(InputStream body) throws IOException {
+        return importService.importUsers(body);
+    }
+
+    @PostMapping("/likes")
+    public ImportReport importLikes(InputStream body) throws IOException {
+        return importService.importLikes(body);
+    }
+
+    @PostMapping("/friends")
+    public ImportReport importFriends(InputStream body) throws IOException {
+        return importService.importFriends(body);
+    }
+
+}
@@ -1,10 +1,13 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.helper.EntityVersions;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaService;
 import java.util.Collection;
@@ -16,15 +19,16 @@ import java.util.Collection;
 public class MpaController {
 
     private final MpaService mpaService;
+    private final EntityVersions entityVersions;
 
     @GetMapping
-    public Collection<Mpa> findAll() {
-        return mpaService.findAll();
+    public ResponseEntity<Collection<Mpa>> findAll(WebRequest request) {
+        return entityVersions.referenceResponse(request, () -> mpaService.findAll());
     }
 
     @GetMapping("/{id}")
-    public Mpa findMpa(@PathVariable Long id) {
-        return mpaService.findMpa(id);
+    public ResponseEntity<Mpa> findMpa(@PathVariable Long id, WebRequest request) {
+        return entityVersions.referenceResponse(request, () -> mpaService.findMpa(id));
     }
 
 }
@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,6 +13,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.helper.EntityVersions;
+import ru.yandex.practicum.filmorate.helper.EntityVersions.Entity;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.service.ReviewService;
 import java.util.List;
@@ -23,6 +27,7 @@ import java.util.List;
 public class ReviewController {
 
     private final ReviewService reviewService;
+    private final EntityVersions entityVersions;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -41,8 +46,13 @@ public class ReviewController {
     }
 
     @GetMapping("/{id}")
-    public Review getReview(@PathVariable Long id) {
-        return reviewService.getReview(id);
+    public ResponseEntity<Review> getReview(@PathVariable Long id, WebRequest request) {
+        reviewService.checkExists(id);
+        String etag = entityVersions.etag(Entity.REVIEW, id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(reviewService.getReview(id));
     }
 
     @GetMapping
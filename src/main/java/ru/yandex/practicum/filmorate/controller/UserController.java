@@ -3,12 +3,17 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.helper.JsonArrayStreamer;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 import java.util.Collection;
+import java.util.List;
 
 @SuppressWarnings("unused")
 @RestController
@@ -17,10 +22,18 @@ import java.util.Collection;
 public class UserController {
 
     private final UserService userService;
+    private final JsonArrayStreamer jsonArrayStreamer;
 
-    @GetMapping
-    public Collection<User> findAll() {
-        return userService.findAll();
+    @GetMapping(params = "!limit")
+    public ResponseEntity<StreamingResponseBody> findAll(@RequestParam(required = false) Long after) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonArrayStreamer.<User>stream(consumer -> userService.streamAll(after, consumer)));
+    }
+
+    @GetMapping(params = "limit")
+    public List<User> findPage(@RequestParam(required = false) Long after, @RequestParam int limit) {
+        return userService.findPage(after, limit);
     }
 
     @GetMapping("/{id}")
@@ -71,7 +84,16 @@ public class UserController {
     }
 
     @GetMapping("{id}/feed")
-    public Collection<Event> feed(@PathVariable Long id) {
-        return userService.feed(id);
+    public Collection<Event> feed(@PathVariable Long id,
+                                  @RequestParam(required = false) Long sinceEventId,
+                                  @RequestParam(required = false) Integer limit) {
+        return userService.feed(id, sinceEventId, limit);
+    }
+
+    @GetMapping("{id}/feed/friends")
+    public Collection<Event> friendsFeed(@PathVariable Long id,
+                                         @RequestParam(required = false) Long beforeEventId,
+                                         @RequestParam(defaultValue = "20") int limit) {
+        return userService.friendsFeed(id, beforeEventId, limit);
     }
 }
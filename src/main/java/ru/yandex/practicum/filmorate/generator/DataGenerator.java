@@ -0,0 +1,297 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.storage.RebuildableIndex;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Наполняет пустую БД синтетическими данными для профилирования. Активность пользователей, популярность
+ * фильмов, режиссеров и отзывов распределены по Ципфу, так что лайки и дружба образуют степенной закон.
+ * При одинаковых параметрах и seed результат совпадает до строки. Все строки пишутся одной транзакцией:
+ * после сбоя БД остается пустой, и следующий запуск генерирует данные заново.
+ */
+@Slf4j
+@Profile("generate")
+@Component
+public class DataGenerator implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 5_000;
+    private static final int MAX_ATTEMPTS_PER_ROW = 20;
+    private static final String[] TITLE_WORDS = {"Star", "Night", "Love", "War", "River", "Ghost", "City", "Dream",
+            "Storm", "Silent", "Last", "Summer", "Iron", "Lost", "Winter", "Empire"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<RebuildableIndex> indexes;
+    private final int users;
+    private final int films;
+    private final int directors;
+    private final long likes;
+    private final long friendships;
+    private final int reviews;
+    private final long reviewVotes;
+    private final double skew;
+    private final long seed;
+
+    public DataGenerator(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         List<RebuildableIndex> indexes,
+                         @Value("${filmorate.generator.users:10000}") int users,
+                         @Value("${filmorate.generator.films:5000}") int films,
+                         @Value("${filmorate.generator.directors:500}") int directors,
+                         @Value("${filmorate.generator.likes:200000}") long likes,
+                         @Value("${filmorate.generator.friendships:50000}") long friendships,
+                         @Value("${filmorate.generator.reviews:10000}") int reviews,
+                         @Value("${filmorate.generator.review-votes:50000}") long reviewVotes,
+                         @Value("${filmorate.generator.skew:1.0}") double skew,
+                         @Value("${filmorate.generator.seed:42}") long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.indexes = indexes;
+        this.users = users;
+        this.films = films;
+        this.directors = directors;
+        this.likes = likes;
+        this.friendships = friendships;
+        this.reviews = reviews;
+        this.reviewVotes = reviewVotes;
+        this.skew = skew;
+        this.seed = seed;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        generate();
+    }
+
+    public void generate() {
+        Long existing = jdbcTemplate.queryForObject(
+                "SELECT (SELECT COUNT(*) FROM users) + (SELECT COUNT(*) FROM films)", Long.class);
+        if (Objects.nonNull(existing) && existing > 0) {
+            log.warn("В БД уже есть пользователи или фильмы, генерация пропущена");
+            return;
+        }
+        long started = System.nanoTime();
+        long[] written = transactionTemplate.execute(status -> insertAll());
+        //DDL в H2 фиксирует транзакцию, поэтому идентификаторы сдвигаются уже после записи данных
+        restartIdentity("users", users);
+        restartIdentity("films", films);
+        restartIdentity("directors", directors);
+        restartIdentity("reviews", reviews);
+        indexes.forEach(RebuildableIndex::rebuild);
+
+        log.info("Сгенерировано за {} с: пользователей {}, фильмов {}, режиссеров {}, лайков {}, дружб {}, "
+                        + "отзывов {}, оценок отзывов {}",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started), users, films, directors, written[0],
+                written[1], reviews, written[2]);
+    }
+
+    //возвращает число записанных лайков, дружб и оценок отзывов
+    private long[] insertAll() {
+        SplittableRandom random = new SplittableRandom(seed);
+        ZipfSampler userActivity = new ZipfSampler(users, skew, random);
+        ZipfSampler userPopularity = new ZipfSampler(users, skew, random);
+        ZipfSampler filmPopularity = new ZipfSampler(films, skew, random);
+        ZipfSampler directorPopularity = new ZipfSampler(directors, skew, random);
+        ZipfSampler reviewPopularity = new ZipfSampler(Math.max(reviews, 1), skew, random);
+
+        insertUsers(random);
+        insertDirectors();
+        insertFilms(random, directorPopularity);
+        long likesWritten = insertLikes(random, userActivity, filmPopularity);
+        long friendshipsWritten = insertFriendships(random, userActivity, userPopularity);
+        insertReviews(random, userActivity, filmPopularity);
+        long votesWritten = insertReviewVotes(random, userActivity, reviewPopularity);
+
+        jdbcTemplate.execute("UPDATE films f SET likes_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id)");
+        jdbcTemplate.execute("""
+                UPDATE reviews r
+                SET useful = (SELECT COALESCE(SUM(rl.rating), 0) FROM review_likes rl WHERE rl.review_id = r.id)
+                """);
+        return new long[]{likesWritten, friendshipsWritten, votesWritten};
+    }
+
+    private void insertUsers(SplittableRandom random) {
+        try (Batch batch = new Batch("INSERT INTO users (id, name, login, email, birthday) VALUES (?, ?, ?, ?, ?)")) {
+            LocalDate from = LocalDate.of(1950, 1, 1);
+            for (long id = 1; id <= users; id++) {
+                batch.add(id, "User " + id, "user" + id, "user" + id + "@example.com",
+                        Date.valueOf(from.plusDays(random.nextInt(20_000))));
+            }
+        }
+    }
+
+    private void insertDirectors() {
+        try (Batch batch = new Batch("INSERT INTO directors (id, name) VALUES (?, ?)")) {
+            for (long id = 1; id <= directors; id++) {
+                batch.add(id, "Director " + id);
+            }
+        }
+    }
+
+    private void insertFilms(SplittableRandom random, ZipfSampler directorPopularity) {
+        Integer ratings = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ratings", Integer.class);
+        Integer genres = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM genres", Integer.class);
+        LocalDate from = LocalDate.of(1930, 1, 1);
+        try (Batch filmBatch = new Batch("""
+                INSERT INTO films (id, name, description, release, duration, rating_id) VALUES (?, ?, ?, ?, ?, ?)
+                """);
+             Batch genreBatch = new Batch("INSERT INTO genres_films (film_id, genre_id) VALUES (?, ?)", filmBatch);
+             Batch directorBatch = new Batch("INSERT INTO directors_films (director_id, film_id) VALUES (?, ?)",
+                     filmBatch)) {
+            for (long id = 1; id <= films; id++) {
+                String title = TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " "
+                        + TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " " + id;
+                filmBatch.add(id, title, "Описание фильма " + id,
+                        Date.valueOf(from.plusDays(random.nextInt(34_000))), 60 + random.nextInt(140),
+                        1 + random.nextInt(ratings));
+                int first = random.nextInt(genres);
+                int count = 1 + random.nextInt(Math.min(3, genres));
+                for (int i = 0; i < count; i++) {
+                    genreBatch.add(id, 1 + (first + i) % genres);
+                }
+                if (directors > 0) {
+                    directorBatch.add(directorPopularity.sample(random), id);
+                }
+            }
+        }
+    }
+
+    //число лайков пользователя пропорционально весу его ранга активности, сами фильмы выбираются по популярности
+    private long insertLikes(SplittableRandom random, ZipfSampler userActivity, ZipfSampler filmPopularity) {
+        try (Batch batch = new Batch("INSERT INTO likes (film_id, user_id) VALUES (?, ?)")) {
+            for (int rank = 0; rank < userActivity.size(); rank++) {
+                long userId = userActivity.idAt(rank);
+                int degree = degree(likes, userActivity.probability(rank), films);
+                for (long filmId : distinctSample(random, filmPopularity, degree, -1)) {
+                    batch.add(filmId, userId);
+                }
+            }
+            return batch.written();
+        }
+    }
+
+    private long insertFriendships(SplittableRandom random, ZipfSampler userActivity, ZipfSampler userPopularity) {
+        try (Batch batch = new Batch("INSERT INTO friends (user_id, friend_id) VALUES (?, ?)")) {
+            for (int rank = 0; rank < userActivity.size(); rank++) {
+                long userId = userActivity.idAt(rank);
+                int degree = degree(friendships, userActivity.probability(rank), users - 1);
+                for (long friendId : distinctSample(random, userPopularity, degree, userId)) {
+                    batch.add(userId, friendId);
+                }
+            }
+            return batch.written();
+        }
+    }
+
+    private void insertReviews(SplittableRandom random, ZipfSampler userActivity, ZipfSampler filmPopularity) {
+        try (Batch batch = new Batch(
+                "INSERT INTO reviews (id, content, user_id, film_id, is_positive) VALUES (?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= reviews; id++) {
+                batch.add(id, "Отзыв " + id, userActivity.sample(random), filmPopularity.sample(random),
+                        random.nextBoolean());
+            }
+        }
+    }
+
+    private long insertReviewVotes(SplittableRandom random, ZipfSampler userActivity, ZipfSampler reviewPopularity) {
+        if (reviews == 0) {
+            return 0;
+        }
+        Set<Long> voted = new HashSet<>();
+        try (Batch batch = new Batch("INSERT INTO review_likes (user_id, review_id, rating) VALUES (?, ?, ?)")) {
+            for (long attempt = 0; attempt < reviewVotes * 3 && voted.size() < reviewVotes; attempt++) {
+                long userId = userActivity.sample(random);
+                long reviewId = reviewPopularity.sample(random);
+                if (voted.add(reviewId * (users + 1L) + userId)) {
+                    batch.add(userId, reviewId, random.nextInt(10) < 7 ? 1 : -1);
+                }
+            }
+            return batch.written();
+        }
+    }
+
+    private static int degree(long total, double probability, int max) {
+        return (int) Math.min(max / 2, Math.round(total * probability));
+    }
+
+    private static List<Long> distinctSample(SplittableRandom random, ZipfSampler sampler, int count, long exclude) {
+        Set<Long> picked = new HashSet<>();
+        for (int attempt = 0; attempt < count * MAX_ATTEMPTS_PER_ROW && picked.size() < count; attempt++) {
+            long id = sampler.sample(random);
+            if (id != exclude) {
+                picked.add(id);
+            }
+        }
+        List<Long> sorted = new ArrayList<>(picked);
+        sorted.sort(null);
+        return sorted;
+    }
+
+    private void restartIdentity(String table, long lastId) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (lastId + 1));
+    }
+
+    //пакет связанной таблицы перед записью сбрасывает родительский, чтобы внешние ключи уже существовали
+    private final class Batch implements AutoCloseable {
+        private final String sql;
+        private final Batch parent;
+        private final List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        private long written;
+
+        private Batch(String sql) {
+            this(sql, null);
+        }
+
+        private Batch(String sql, Batch parent) {
+            this.sql = sql;
+            this.parent = parent;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+            if (rows.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        long written() {
+            flush();
+            return written;
+        }
+
+        private void flush() {
+            if (Objects.nonNull(parent)) {
+                parent.flush();
+            }
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                written += rows.size();
+                rows.clear();
+            }
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+/**
+ * Запуск генератора без веб-сервера: поднимает контекст с профилем generate, наполняет БД и завершается.
+ * Параметры передаются как аргументы Spring, например --filmorate.generator.users=100000.
+ */
+public final class GeneratorCli {
+
+    private GeneratorCli() {
+    }
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("generate")
+                .run(args)
+                .close();
+    }
+
+}
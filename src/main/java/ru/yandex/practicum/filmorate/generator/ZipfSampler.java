@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Выборка id из 1..n по закону Ципфа: вероятность ранга r пропорциональна 1 / r^s.
+ * Ранги случайно переставлены по id, чтобы популярность не совпадала с порядком создания.
+ */
+final class ZipfSampler {
+
+    private final double[] cdf;
+    private final long[] idsByRank;
+
+    ZipfSampler(int n, double exponent, SplittableRandom random) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cdf[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cdf[rank] /= sum;
+        }
+        idsByRank = new long[n];
+        for (int rank = 0; rank < n; rank++) {
+            idsByRank[rank] = rank + 1;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long swap = idsByRank[i];
+            idsByRank[i] = idsByRank[j];
+            idsByRank[j] = swap;
+        }
+    }
+
+    long sample(SplittableRandom random) {
+        int position = Arrays.binarySearch(cdf, random.nextDouble());
+        int rank = position >= 0 ? position : -position - 1;
+        return idsByRank[Math.min(rank, idsByRank.length - 1)];
+    }
+
+    int size() {
+        return idsByRank.length;
+    }
+
+    long idAt(int rank) {
+        return idsByRank[rank];
+    }
+
+    double probability(int rank) {
+        return rank == 0 ? cdf[0] : cdf[rank] - cdf[rank - 1];
+    }
+
+}
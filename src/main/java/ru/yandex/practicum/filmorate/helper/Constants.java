@@ -1,10 +1,16 @@
 package ru.yandex.practicum.filmorate.helper;
 
+import java.time.Duration;
 import java.time.LocalDate;
 
 public abstract class Constants {
 
     public static final Integer MAX_DESCRIPTION_LENGTH = 200;
+    //длина VARCHAR у названий фильмов и имени, логина и почты пользователя
+    public static final Integer MAX_NAME_LENGTH = 200;
     public static final LocalDate MIN_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+    public static final Integer MAX_PAGE_SIZE = 1000;
+    public static final Integer STREAM_CHUNK_SIZE = 500;
+    public static final Duration REFERENCE_CACHE_MAX_AGE = Duration.ofDays(1);
 
 }
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.helper;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Счетчики версий сущностей для ETag. Версия растет после коммита каждого изменения сущности,
+ * поэтому совпадение ETag значит, что клиент уже видел текущее состояние и БД можно не читать.
+ * Счетчики живут в памяти, а в ETag входит момент запуска, чтобы после рестарта старые ETag не совпадали.
+ * У сущности без изменений версия 0, поэтому id входит в ETag, а существование сущности контроллер
+ * проверяет до сравнения ETag.
+ */
+@Component
+public class EntityVersions {
+
+    public enum Entity {
+        FILM, DIRECTOR, REVIEW
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Entity, Map<Long, Long>> versions = new EnumMap<>(Entity.class);
+    //растет при изменениях, которые задевают сразу много сущностей типа (каскадное удаление, правка режиссера)
+    private final Map<Entity, AtomicLong> generations = new EnumMap<>(Entity.class);
+    //растет при любом изменении сущностей типа, по нему строится ETag списков
+    private final Map<Entity, AtomicLong> listVersions = new EnumMap<>(Entity.class);
+
+    public EntityVersions() {
+        for (Entity entity : Entity.values()) {
+            versions.put(entity, new ConcurrentHashMap<>());
+            generations.put(entity, new AtomicLong());
+            listVersions.put(entity, new AtomicLong());
+        }
+    }
+
+    public void bump(Entity entity, Long id) {
+        versions.get(entity).merge(id, 1L, Long::sum);
+        listVersions.get(entity).incrementAndGet();
+    }
+
+    public void bumpAll(Entity entity) {
+        generations.get(entity).incrementAndGet();
+        listVersions.get(entity).incrementAndGet();
+    }
+
+    public String etag(Entity entity, Long id) {
+        return quote(entity.name().toLowerCase() + "-" + id + "-" + epoch + "-" + generations.get(entity).get()
+                + "-" + versions.get(entity).getOrDefault(id, 0L));
+    }
+
+    public String listEtag(Entity entity) {
+        return quote(entity.name().toLowerCase() + "s-" + epoch + "-" + listVersions.get(entity).get());
+    }
+
+    /**
+     * Жанры и рейтинги меняются только миграциями, то есть вместе с перезапуском.
+     */
+    public String referenceEtag() {
+        return quote("reference-" + epoch);
+    }
+
+    /**
+     * Ответ справочника с ETag и публичным долгим кэшем; null, если у клиента актуальная версия (304).
+     */
+    public <T> ResponseEntity<T> referenceResponse(WebRequest request, Supplier<T> body) {
+        String etag = referenceEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Constants.REFERENCE_CACHE_MAX_AGE).cachePublic())
+                .eTag(etag)
+                .body(body.get());
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+}
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Отсортированные массивы long для индексов в памяти. Опубликованный массив не меняется, изменение
+ * возвращает новую копию, поэтому читатель без блокировок всегда видит целый согласованный массив.
+ */
+public abstract class SortedLongArrays {
+
+    public static final long[] EMPTY = new long[0];
+
+    //до стольких изменений массив правится точечно, больше - пересобирается одной сортировкой
+    private static final int POINT_CHANGES = 8;
+
+    public static long[] sorted(Collection<Long> values) {
+        return values.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+    }
+
+    public static long[] with(long[] values, long value) {
+        int position = Arrays.binarySearch(values, value);
+        if (position >= 0) {
+            return values;
+        }
+        int insertAt = -position - 1;
+        long[] copy = new long[values.length + 1];
+        System.arraycopy(values, 0, copy, 0, insertAt);
+        copy[insertAt] = value;
+        System.arraycopy(values, insertAt, copy, insertAt + 1, values.length - insertAt);
+        return copy;
+    }
+
+    public static long[] without(long[] values, long value) {
+        int position = Arrays.binarySearch(values, value);
+        if (position < 0) {
+            return values;
+        }
+        long[] copy = new long[values.length - 1];
+        System.arraycopy(values, 0, copy, 0, position);
+        System.arraycopy(values, position + 1, copy, position, values.length - position - 1);
+        return copy;
+    }
+
+    /**
+     * Новая копия массива без removed и с added, значение из обоих наборов остается в массиве.
+     */
+    public static long[] change(long[] values, Set<Long> removed, Collection<Long> added) {
+        if (removed.size() + added.size() <= POINT_CHANGES) {
+            long[] result = values;
+            for (Long value : removed) {
+                result = without(result, value);
+            }
+            for (Long value : added) {
+                result = with(result, value);
+            }
+            return result;
+        }
+        long[] kept = Arrays.stream(values).filter(value -> !removed.contains(value)).toArray();
+        long[] result = Arrays.copyOf(kept, kept.length + added.size());
+        int i = kept.length;
+        for (Long value : added) {
+            result[i++] = value;
+        }
+        Arrays.sort(result);
+        return Arrays.stream(result).distinct().toArray();
+    }
+
+    /**
+     * Ключ сортировки: старшие 32 бита задают порядок, младшие хранят id (id фильмов укладываются в int).
+     */
+    public static long pack(long order, long id) {
+        return (order << 32) | id;
+    }
+
+    public static long unpackId(long key) {
+        return key & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Накопленные изменения нескольких массивов, публикуются разом - по одной новой копии на массив.
+     */
+    public static final class Changes<K> {
+
+        private final Map<K, Set<Long>> removed = new HashMap<>();
+        private final Map<K, List<Long>> added = new HashMap<>();
+
+        public void remove(K bucket, long value) {
+            removed.computeIfAbsent(bucket, key -> new HashSet<>()).add(value);
+        }
+
+        public void add(K bucket, long value) {
+            added.computeIfAbsent(bucket, key -> new ArrayList<>()).add(value);
+        }
+
+        public void applyTo(Map<K, long[]> buckets) {
+            Set<K> changed = new HashSet<>(removed.keySet());
+            changed.addAll(added.keySet());
+            for (K bucket : changed) {
+                long[] next = change(buckets.getOrDefault(bucket, EMPTY), removed.getOrDefault(bucket, Set.of()),
+                        added.getOrDefault(bucket, List.of()));
+                if (next.length == 0) {
+                    buckets.remove(bucket);
+                } else {
+                    buckets.put(bucket, next);
+                }
+            }
+        }
+
+    }
+
+}
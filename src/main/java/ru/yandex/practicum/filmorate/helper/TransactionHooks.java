@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.helper;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public abstract class TransactionHooks {
+
+    /**
+     * Выполняет действие после коммита текущей транзакции, а вне транзакции - сразу.
+     * Используется для обновления in-memory индексов, чтобы откат не оставлял их рассинхронизированными с БД.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.core.DefaultHttpLogWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись логов logbook фоновым потоком через ограниченную очередь. При заполненной очереди запись
+ * отбрасывается и учитывается в счетчике filmorate.logbook.dropped, поток запроса никогда не ждет.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.logbook.mode", havingValue = "sampled")
+public class AsyncHttpLogWriter implements HttpLogWriter {
+
+    private static final int DRAIN_SIZE = 256;
+
+    private final HttpLogWriter delegate = new DefaultHttpLogWriter();
+    private final BlockingQueue<Entry> queue;
+    private final Counter dropped;
+    private volatile boolean running = true;
+    private Thread worker;
+
+    public AsyncHttpLogWriter(MeterRegistry meterRegistry,
+                              @Value("${filmorate.logbook.queue-capacity:1024}") int queueCapacity) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.dropped = meterRegistry.counter("filmorate.logbook.dropped");
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = Thread.ofPlatform().name("logbook-writer").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        drain();
+    }
+
+    @Override
+    public boolean isActive() {
+        return delegate.isActive();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, String request) {
+        enqueue(new Entry(precorrelation, request));
+    }
+
+    @Override
+    public void write(Correlation correlation, String response) {
+        enqueue(new Entry(correlation, response));
+    }
+
+    private void enqueue(Entry entry) {
+        if (!queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Entry entry = queue.take();
+                write(entry);
+                drain();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(DRAIN_SIZE);
+        while (queue.drainTo(batch, DRAIN_SIZE) > 0) {
+            batch.forEach(this::write);
+            batch.clear();
+        }
+    }
+
+    private void write(Entry entry) {
+        try {
+            if (entry.precorrelation() instanceof Correlation correlation) {
+                delegate.write(correlation, entry.message());
+            } else {
+                delegate.write(entry.precorrelation(), entry.message());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось записать лог запроса {}: {}", entry.precorrelation().getId(), e.getMessage());
+        }
+    }
+
+    private record Entry(Precorrelation precorrelation, String message) {
+    }
+
+}
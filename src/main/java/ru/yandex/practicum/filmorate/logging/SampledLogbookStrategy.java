@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Выборочное логирование обменов: тела ответов буферизуются только у доли запросов sample-rate,
+ * остальные обмены пишутся без тела ответа и только при ошибке или длительности от slow-threshold.
+ * Запрос пишется одной записью вместе с ответом, когда уже известны статус и длительность.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.logbook.mode", havingValue = "sampled")
+public class SampledLogbookStrategy implements Strategy {
+
+    private final double sampleRate;
+    private final Duration slowThreshold;
+    //logbook передает один и тот же объект запроса во все вызовы после process(request), ключи сравниваются по ссылке
+    private final Map<HttpRequest, Boolean> sampled = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public SampledLogbookStrategy(@Value("${filmorate.logbook.sample-rate:0.01}") double sampleRate,
+                                  @Value("${filmorate.logbook.slow-threshold:500ms}") Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowThreshold = slowThreshold;
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) {
+        if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            sampled.put(request, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        return sampled.containsKey(request) ? response.withBody() : response.withoutBody();
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response, Sink sink)
+            throws IOException {
+        //отметка снимается сразу, а не ждет сборки мусора: WeakHashMap чистится только при обращениях к карте
+        boolean sample = Objects.nonNull(sampled.remove(request));
+        if (sample || response.getStatus() >= 400 || correlation.getDuration().compareTo(slowThreshold) >= 0) {
+            sink.writeBoth(correlation, request, response);
+        }
+    }
+
+}
@@ -17,7 +17,7 @@ public class ReviewMapper implements RowMapper<Review> {
             .isPositive(rs.getBoolean("is_positive"))
             .userId(rs.getLong("user_id"))
             .filmId(rs.getLong("film_id"))
-            .useful(rs.getInt("rating_sum"))
+            .useful(rs.getInt("useful"))
             .build();
     }
 
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Repository;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики публичных методов хранилищ и сервисов: время выполнения с перцентилями, число возвращенных строк
+ * для коллекций и число ошибок по типу исключения. Метры создаются один раз на метод и кэшируются,
+ * поэтому на горячем пути остаются только два вызова nanoTime и запись в гистограмму.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class OperationMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, OperationMeters> meters = new ConcurrentHashMap<>();
+
+    @Around("within(ru.yandex.practicum.filmorate..*) && (@within(org.springframework.stereotype.Repository) "
+            + "|| @within(org.springframework.stereotype.Service))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        OperationMeters operation = meters.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                this::register);
+        long started = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            if (result instanceof Collection<?> rows) {
+                operation.rows().record(rows.size());
+            }
+            return result;
+        } catch (Throwable e) {
+            meterRegistry.counter("filmorate.operation.errors",
+                    operation.tags().and("exception", e.getClass().getSimpleName())).increment();
+            throw e;
+        } finally {
+            operation.timer().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private OperationMeters register(Method method) {
+        Class<?> type = method.getDeclaringClass();
+        Tags tags = Tags.of(
+                "layer", type.isAnnotationPresent(Repository.class) ? "storage" : "service",
+                "operation", type.getSimpleName() + "." + method.getName());
+        Timer timer = Timer.builder("filmorate.operation")
+                .tags(tags)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        DistributionSummary rows = DistributionSummary.builder("filmorate.operation.rows")
+                .tags(tags)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        return new OperationMeters(tags, timer, rows);
+    }
+
+    private record OperationMeters(Tags tags, Timer timer, DistributionSummary rows) {
+    }
+
+}
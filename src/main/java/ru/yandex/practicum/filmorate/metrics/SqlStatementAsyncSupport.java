@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+
+/**
+ * Статистика SQL для ответов, которые MVC дописывает в асинхронном потоке (StreamingResponseBody):
+ * переносит статистику запроса в этот поток и пишет итог в лог после завершения ответа.
+ * Заголовки к этому моменту уже отправлены, поэтому X-Sql-Statements и X-Sql-Time-Ms уходят
+ * HTTP-трейлерами, если протокол их поддерживает. Бюджет для таких ответов только проверяется в логе:
+ * тело уже отправлено клиенту, и отклонить ответ нельзя.
+ */
+@Component
+@RequiredArgsConstructor
+public class SqlStatementAsyncSupport implements WebMvcConfigurer, CallableProcessingInterceptor {
+
+    private final SqlStatementFilter filter;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(this);
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        SqlStatementStats stats = stats(request);
+        HttpServletResponse response = request.getNativeResponse(HttpServletResponse.class);
+        if (Objects.isNull(stats) || Objects.isNull(response) || response.isCommitted()) {
+            return;
+        }
+        try {
+            response.setTrailerFields(() -> Map.of(
+                    "X-Sql-Statements", String.valueOf(stats.statements()),
+                    "X-Sql-Time-Ms", String.valueOf(stats.elapsedMillis())));
+            response.setHeader("Trailer", "X-Sql-Statements, X-Sql-Time-Ms");
+        } catch (IllegalStateException e) {
+            //HTTP/1.0 и ответы с известной длиной трейлеры не поддерживают
+        }
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        SqlStatementStats stats = stats(request);
+        if (Objects.nonNull(stats)) {
+            SqlStatementStats.resume(stats);
+        }
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        SqlStatementStats.finish();
+    }
+
+    @Override
+    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+        SqlStatementStats stats = stats(request);
+        HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+        if (Objects.nonNull(stats) && Objects.nonNull(servletRequest)) {
+            filter.report(servletRequest, stats);
+        }
+    }
+
+    private static SqlStatementStats stats(NativeWebRequest request) {
+        Object stats = request.getAttribute(SqlStatementStats.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return stats instanceof SqlStatementStats current ? current : null;
+    }
+
+}
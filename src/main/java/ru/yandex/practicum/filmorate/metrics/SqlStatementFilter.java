@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Открывает статистику SQL на время HTTP-запроса и по его завершении пишет в лог число запросов,
+ * время в БД, подозрения на N+1 и превышение бюджета. Для потоковых ответов, которые дописываются
+ * в асинхронном потоке, итог пишет {@link SqlStatementAsyncSupport}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    private final SqlStatementProperties properties;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementStats stats = SqlStatementStats.start(properties.nPlusOneThreshold());
+        request.setAttribute(SqlStatementStats.ATTRIBUTE, stats);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlStatementStats.finish();
+            if (!isAsyncStarted(request)) {
+                report(request, stats);
+            }
+        }
+    }
+
+    void report(HttpServletRequest request, SqlStatementStats stats) {
+        String endpoint = endpoint(request);
+        log.debug("{}: SQL-запросов {}, время в БД {} мс", endpoint, stats.statements(), stats.elapsedMillis());
+        List<String> suspects = stats.suspects();
+        if (!suspects.isEmpty()) {
+            log.warn("{}: возможный N+1, запросы повторялись с разными параметрами: {}", endpoint, suspects);
+        }
+        if (properties.exceeds(endpoint, stats.statements())) {
+            log.warn("{}: превышен бюджет SQL-запросов, {} при лимите {}", endpoint, stats.statements(),
+                    properties.budgetFor(endpoint));
+        }
+    }
+
+    static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (Objects.isNull(pattern) ? request.getRequestURI() : pattern);
+    }
+
+}
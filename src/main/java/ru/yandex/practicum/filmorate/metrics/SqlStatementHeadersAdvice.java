@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Objects;
+
+/**
+ * Добавляет к ответу заголовки X-Sql-Statements и X-Sql-Time-Ms, пока тело еще не записано.
+ * В режиме enforceBudget отклоняет ответ, если эндпоинт превысил свой бюджет запросов.
+ */
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class SqlStatementHeadersAdvice implements ResponseBodyAdvice<Object> {
+
+    private final SqlStatementProperties properties;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatementStats stats = SqlStatementStats.current();
+        if (Objects.isNull(stats)) {
+            return body;
+        }
+        response.getHeaders().set("X-Sql-Statements", String.valueOf(stats.statements()));
+        response.getHeaders().set("X-Sql-Time-Ms", String.valueOf(stats.elapsedMillis()));
+        if (properties.enforceBudget() && request instanceof ServletServerHttpRequest servletRequest) {
+            String endpoint = SqlStatementFilter.endpoint(servletRequest.getServletRequest());
+            if (properties.exceeds(endpoint, stats.statements())) {
+                throw new IllegalStateException("Превышен бюджет SQL-запросов для " + endpoint + ": "
+                        + stats.statements() + " при лимите " + properties.budgetFor(endpoint));
+            }
+        }
+        return body;
+    }
+
+}
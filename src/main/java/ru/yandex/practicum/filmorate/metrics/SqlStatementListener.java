@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Передает каждое выполнение запроса в статистику текущего HTTP-запроса. Пакет считается одним запросом.
+ */
+class SqlStatementListener implements QueryExecutionListener {
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        SqlStatementStats stats = SqlStatementStats.current();
+        if (Objects.isNull(stats) || queryInfoList.isEmpty()) {
+            return;
+        }
+        QueryInfo query = queryInfoList.getFirst();
+        StringBuilder parameters = new StringBuilder();
+        for (List<ParameterSetOperation> operations : query.getParametersList()) {
+            for (ParameterSetOperation operation : operations) {
+                parameters.append(Arrays.deepToString(operation.getArgs()));
+            }
+        }
+        stats.record(query.getQuery(), parameters.toString(), execInfo.getElapsedTime());
+    }
+
+}
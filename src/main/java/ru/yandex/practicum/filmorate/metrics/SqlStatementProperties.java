@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Бюджет SQL-запросов на HTTP-запрос. Ключ budgets - метод и шаблон пути, например
+ * filmorate.sql.budgets[GET /films/{id}]=4; defaultBudget 0 означает отсутствие лимита.
+ * С enforceBudget=true превышение бюджета возвращает ошибку вместо предупреждения в логе, это режим для тестов.
+ */
+@ConfigurationProperties(prefix = "filmorate.sql")
+public record SqlStatementProperties(@DefaultValue("0") int defaultBudget,
+                                     Map<String, Integer> budgets,
+                                     @DefaultValue("false") boolean enforceBudget,
+                                     @DefaultValue("5") int nPlusOneThreshold) {
+
+    public int budgetFor(String endpoint) {
+        return Objects.isNull(budgets) ? defaultBudget : budgets.getOrDefault(endpoint, defaultBudget);
+    }
+
+    public boolean exceeds(String endpoint, int statements) {
+        int budget = budgetFor(endpoint);
+        return budget > 0 && statements > budget;
+    }
+
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * SQL-запросы, выполненные в рамках одного HTTP-запроса: количество, суммарное время в БД и наборы параметров
+ * для каждого текста запроса. Один и тот же запрос с разными параметрами много раз подряд - признак N+1.
+ */
+public final class SqlStatementStats {
+
+    //атрибут HTTP-запроса, через который статистику находит асинхронная часть обработки
+    static final String ATTRIBUTE = SqlStatementStats.class.getName();
+
+    private static final ThreadLocal<SqlStatementStats> CURRENT = new ThreadLocal<>();
+
+    private final int suspectThreshold;
+    private final Map<String, Set<String>> parametersBySql = new HashMap<>();
+    private int statements;
+    private long elapsedMillis;
+
+    private SqlStatementStats(int suspectThreshold) {
+        this.suspectThreshold = suspectThreshold;
+    }
+
+    static SqlStatementStats start(int suspectThreshold) {
+        SqlStatementStats stats = new SqlStatementStats(suspectThreshold);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void resume(SqlStatementStats stats) {
+        CURRENT.set(stats);
+    }
+
+    static void finish() {
+        CURRENT.remove();
+    }
+
+    public static SqlStatementStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Переносит статистику текущего запроса в задачу, выполняемую в другом потоке.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        SqlStatementStats stats = CURRENT.get();
+        if (Objects.isNull(stats)) {
+            return task;
+        }
+        return () -> {
+            CURRENT.set(stats);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    public synchronized void record(String sql, String parameters, long elapsedMillis) {
+        statements++;
+        this.elapsedMillis += elapsedMillis;
+        Set<String> seen = parametersBySql.computeIfAbsent(sql, key -> new HashSet<>());
+        if (seen.size() < suspectThreshold) {
+            seen.add(parameters);
+        }
+    }
+
+    public synchronized int statements() {
+        return statements;
+    }
+
+    public synchronized long elapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public synchronized List<String> suspects() {
+        List<String> suspects = new ArrayList<>();
+        parametersBySql.forEach((sql, parameters) -> {
+            if (parameters.size() >= suspectThreshold) {
+                suspects.add(sql);
+            }
+        });
+        return suspects;
+    }
+
+}
@@ -21,5 +21,6 @@ public class Film {
     private Mpa mpa;
     private List<Genre> genres;
     private List<Director> directors;
+    private Integer likesCount;
 
 }
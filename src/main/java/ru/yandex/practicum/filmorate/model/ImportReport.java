@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportReport {
+
+    private static final int MAX_ERRORS = 1000;
+
+    private long accepted;
+    private long rejected;
+    private final List<LineError> errors = new ArrayList<>();
+
+    public void accept(int count) {
+        accepted += count;
+    }
+
+    //в отчет попадают первые MAX_ERRORS ошибок, остальные только считаются
+    public void reject(long line, String message) {
+        rejected++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new LineError(line, message));
+        }
+    }
+
+    public record LineError(long line, String message) {
+    }
+
+}
@@ -22,6 +22,10 @@ public class DirectorService {
         return directorDbStorage.findDirectorById(id);
     }
 
+    public void checkExists(Long id) {
+        directorDbStorage.checkExists(id);
+    }
+
     public Director create(Director newDirector) {
         return directorDbStorage.create(newDirector);
     }
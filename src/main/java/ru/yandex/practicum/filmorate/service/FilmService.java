@@ -10,6 +10,7 @@ import ru.yandex.practicum.filmorate.storage.likes.LikeDbStorage;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -19,14 +20,22 @@ public class FilmService {
     private final LikeDbStorage likeDbStorage;
     private final EventDbStorage eventDbStorage;
 
-    public Collection<Film> findAll() {
-        return filmDbStorage.findAll();
+    public List<Film> findPage(Long after, int limit) {
+        return filmDbStorage.findPage(after, limit);
+    }
+
+    public void streamAll(Long after, Consumer<Film> consumer) {
+        filmDbStorage.streamAll(after, consumer);
     }
 
     public Film findFilm(Long id) {
         return filmDbStorage.getFilm(id);
     }
 
+    public void checkExists(Long id) {
+        filmDbStorage.checkExists(id);
+    }
+
     public Film create(Film newFilm) {
         return filmDbStorage.create(newFilm);
     }
@@ -57,8 +66,8 @@ public class FilmService {
         return filmDbStorage.getCommonPopularFilm(userId, friendId);
     }
 
-    public List<Film> getFilmsListByDirector(Long directorId, String sortBy) {
-        return filmDbStorage.getFilmsListByDirector(directorId, sortBy);
+    public List<Film> getFilmsListByDirector(Long directorId, String sortBy, Integer limit, int offset) {
+        return filmDbStorage.getFilmsListByDirector(directorId, sortBy, limit, offset);
     }
 
     public List<Film> search(String query, String by) {
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.bulk.BulkImportStorage;
+import ru.yandex.practicum.filmorate.storage.bulk.ImportLine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+@Slf4j
+@Service
+public class ImportService {
+
+    private final ObjectMapper objectMapper;
+    private final BulkImportStorage bulkImportStorage;
+    private final int chunkSize;
+
+    public ImportService(ObjectMapper objectMapper,
+                         BulkImportStorage bulkImportStorage,
+                         @Value("${filmorate.import.chunk-size:5000}") int chunkSize) {
+        this.objectMapper = objectMapper;
+        this.bulkImportStorage = bulkImportStorage;
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportReport importFilms(InputStream body) throws IOException {
+        return importLines(body, Film.class, bulkImportStorage::importFilms);
+    }
+
+    public ImportReport importUsers(InputStream body) throws IOException {
+        return importLines(body, User.class, bulkImportStorage::importUsers);
+    }
+
+    public ImportReport importLikes(InputStream body) throws IOException {
+        return importLines(body, Like.class, bulkImportStorage::importLikes);
+    }
+
+    public ImportReport importFriends(InputStream body) throws IOException {
+        return importLines(body, Friendship.class, bulkImportStorage::importFriends);
+    }
+
+    //тело читается построчно и пишется порциями, так что в памяти держится не больше одной порции
+    private <T> ImportReport importLines(InputStream body, Class<T> type,
+                                         BiConsumer<List<ImportLine<T>>, ImportReport> writer) throws IOException {
+        ImportReport report = new ImportReport();
+        ObjectReader reader = objectMapper.readerFor(type);
+        List<ImportLine<T>> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            long number = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                number++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    chunk.add(new ImportLine<>(number, reader.readValue(line)));
+                } catch (JsonProcessingException e) {
+                    report.reject(number, "Некорректная строка: " + e.getOriginalMessage());
+                    continue;
+                }
+                if (chunk.size() == chunkSize) {
+                    writer.accept(chunk, report);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writer.accept(chunk, report);
+        }
+        log.info("Загрузка {} завершена: принято {}, отклонено {}", type.getSimpleName(), report.getAccepted(),
+                report.getRejected());
+        return report;
+    }
+
+}
@@ -34,6 +34,10 @@ public class ReviewService {
         eventDbStorage.add(deletedReview.getUserId(), deletedReview.getReviewId(), "reviews", "REMOVE", "REVIEW");
     }
 
+    public void checkExists(Long id) {
+        reviewDbStorage.checkExists(id);
+    }
+
     public Review getReview(Long id) {
         return reviewDbStorage.getReview(id);
     }
@@ -12,6 +12,8 @@ import ru.yandex.practicum.filmorate.storage.friend.FriendDbStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -22,8 +24,12 @@ public class UserService {
     private final FilmDbStorage filmDbStorage;
     private final EventDbStorage eventDbStorage;
 
-    public Collection<User> findAll() {
-        return userDbStorage.findAll();
+    public List<User> findPage(Long after, int limit) {
+        return userDbStorage.findPage(after, limit);
+    }
+
+    public void streamAll(Long after, Consumer<User> consumer) {
+        userDbStorage.streamAll(after, consumer);
     }
 
     public User create(User newUser) {
@@ -40,6 +46,7 @@ public class UserService {
     }
 
     public void deleteById(Long id) {
+        eventDbStorage.flush();
         userDbStorage.deleteById(id);
     }
 
@@ -56,8 +63,12 @@ public class UserService {
         return friendDbstorage.findCommonFriends(userId, otherId);
     }
 
-    public Collection<Event> feed(Long id) {
-        return eventDbStorage.getUserEvents(id);
+    public Collection<Event> feed(Long id, Long sinceEventId, Integer limit) {
+        return eventDbStorage.getUserEvents(id, sinceEventId, limit);
+    }
+
+    public Collection<Event> friendsFeed(Long id, Long beforeEventId, int limit) {
+        return eventDbStorage.getFriendsTimeline(id, beforeEventId, limit);
     }
 
     public User getUser(Long id) {
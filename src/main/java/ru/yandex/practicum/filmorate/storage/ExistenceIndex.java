@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Битовое множество существующих id таблицы для проверок в валидаторах без запроса к БД.
+ * Промах перепроверяется по БД: строка могла быть создана, а индекс еще не обновлен после коммита.
+ * Найденный в БД id добавляется, только если с начала проверки не было удалений: иначе удаление,
+ * зафиксированное между запросом и добавлением, вернуло бы в индекс уже удаленный id.
+ */
+@Slf4j
+public abstract class ExistenceIndex implements RebuildableIndex {
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final String table;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RoaringBitmap ids = new RoaringBitmap();
+    //растет при каждом удалении и перестроении, меняется под блокировкой записи
+    private long removals;
+
+    protected ExistenceIndex(NamedParameterJdbcTemplate namedParameterJdbcTemplate, String table) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.table = table;
+    }
+
+    @PostConstruct
+    @Override
+    public void rebuild() {
+        RoaringBitmap loaded = new RoaringBitmap();
+        namedParameterJdbcTemplate.query("SELECT id FROM " + table, rs -> {
+            loaded.add(rs.getInt("id"));
+        });
+        loaded.runOptimize();
+        lock.writeLock().lock();
+        try {
+            ids.clear();
+            ids.or(loaded);
+            removals++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс существования {} построен, записей: {}", table, loaded.getLongCardinality());
+    }
+
+    public boolean contains(Long id) {
+        if (Objects.isNull(id) || id < 1 || id > Integer.MAX_VALUE) {
+            return false;
+        }
+        long stamp;
+        lock.readLock().lock();
+        try {
+            if (ids.contains(id.intValue())) {
+                return true;
+            }
+            stamp = removals;
+        } finally {
+            lock.readLock().unlock();
+        }
+        String sql = "SELECT EXISTS (SELECT 1 FROM " + table + " WHERE id = :id)";
+        boolean exists = Boolean.TRUE.equals(
+                namedParameterJdbcTemplate.queryForObject(sql, Map.of("id", id), Boolean.class));
+        if (exists) {
+            addUnlessRemoved(id, stamp);
+        }
+        return exists;
+    }
+
+    /**
+     * Существующие id из набора: промахи индекса перепроверяются одним запросом IN на весь набор.
+     */
+    public Set<Long> existing(Collection<Long> candidates) {
+        Set<Long> found = new HashSet<>();
+        List<Long> misses = new ArrayList<>();
+        long stamp;
+        lock.readLock().lock();
+        try {
+            for (Long id : candidates) {
+                if (Objects.isNull(id) || id < 1 || id > Integer.MAX_VALUE) {
+                    continue;
+                }
+                if (ids.contains(id.intValue())) {
+                    found.add(id);
+                } else {
+                    misses.add(id);
+                }
+            }
+            stamp = removals;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+        String sql = "SELECT id FROM " + table + " WHERE id IN (:ids)";
+        List<Long> loaded = namedParameterJdbcTemplate.queryForList(sql, Map.of("ids", misses), Long.class);
+        loaded.forEach(id -> addUnlessRemoved(id, stamp));
+        found.addAll(loaded);
+        return found;
+    }
+
+    public void add(Long id) {
+        lock.writeLock().lock();
+        try {
+            ids.add(id.intValue());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            ids.remove(id.intValue());
+            removals++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addUnlessRemoved(Long id, long stamp) {
+        lock.writeLock().lock();
+        try {
+            if (removals == stamp) {
+                ids.add(id.intValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+}
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * Структура в памяти, построенная по данным БД. Перестраивается целиком после загрузки данных в обход хранилищ.
+ */
+public interface RebuildableIndex {
+
+    void rebuild();
+
+}
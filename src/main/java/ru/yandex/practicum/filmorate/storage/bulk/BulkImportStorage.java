@@ -0,0 +1,363 @@
+package ru.yandex.practicum.filmorate.storage.bulk;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.helper.Constants;
+import ru.yandex.practicum.filmorate.helper.EntityVersions;
+import ru.yandex.practicum.filmorate.helper.EntityVersions.Entity;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.director.DirectorFilmIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmAssembler;
+import ru.yandex.practicum.filmorate.storage.film.FilmExistenceIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.friend.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.likes.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.likes.RecommendationEngine;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceCatalog;
+import ru.yandex.practicum.filmorate.storage.user.UserExistenceIndex;
+import ru.yandex.practicum.filmorate.validation.FilmValidator;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Пакетная загрузка фильмов, пользователей, лайков и дружбы. Каждая порция строк проверяется целиком
+ * (ссылки на справочники и существующие id одним запросом или по индексам в памяти, длины полей по схеме),
+ * затем пишется пакетными вставками в одной транзакции. Если БД отклонила порцию, она пишется заново
+ * по одной строке, и в отчет попадают только отклоненные строки. События ленты при загрузке не создаются.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Repository
+public class BulkImportStorage {
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FilmValidator filmValidator;
+    private final UserValidator userValidator;
+    private final ReferenceCatalog referenceCatalog;
+    private final FilmAssembler filmAssembler;
+    private final FilmExistenceIndex filmExistenceIndex;
+    private final UserExistenceIndex userExistenceIndex;
+    private final PopularityIndex popularityIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final RecommendationEngine recommendationEngine;
+    private final FriendGraph friendGraph;
+    private final EntityVersions entityVersions;
+    private final DirectorFilmIndex directorFilmIndex;
+
+    public void importFilms(List<ImportLine<Film>> chunk, ImportReport report) {
+        Set<Long> knownDirectors = findExistingDirectors(chunk);
+        List<ImportLine<Film>> valid = new ArrayList<>(chunk.size());
+        for (ImportLine<Film> line : chunk) {
+            try {
+                Film film = line.value();
+                filmValidator.forCreate(film);
+                checkLength(film.getName(), "Название");
+                if (!referenceCatalog.containsGenres(ids(film.getGenres(), Genre::getId))) {
+                    throw new NotFoundException("Указан несуществующий жанр.");
+                }
+                if (!knownDirectors.containsAll(ids(film.getDirectors(), Director::getId))) {
+                    throw new NotFoundException("Указан несуществующий режиссер.");
+                }
+                valid.add(line);
+            } catch (ValidationException | NotFoundException e) {
+                report.reject(line.number(), e.getMessage());
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        Written<Long> written = write(valid, report, this::insertFilms);
+        List<Long> filmIds = written.results();
+        for (Film film : filmAssembler.findByIds(filmIds)) {
+            filmExistenceIndex.add(film.getId());
+            popularityIndex.put(film);
+            directorFilmIndex.putFilm(film);
+            filmSearchIndex.putFilm(film);
+        }
+        report.accept(written.lines());
+    }
+
+    public void importUsers(List<ImportLine<User>> chunk, ImportReport report) {
+        List<ImportLine<User>> valid = new ArrayList<>(chunk.size());
+        for (ImportLine<User> line : chunk) {
+            try {
+                User user = line.value();
+                userValidator.forCreate(user);
+                checkLength(user.getName(), "Имя");
+                checkLength(user.getLogin(), "Логин");
+                checkLength(user.getEmail(), "Почта");
+                valid.add(line);
+            } catch (ValidationException e) {
+                report.reject(line.number(), e.getMessage());
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        Written<Long> written = write(valid, report, this::insertUsers);
+        written.results().forEach(userExistenceIndex::add);
+        report.accept(written.lines());
+    }
+
+    public void importLikes(List<ImportLine<Like>> chunk, ImportReport report) {
+        Set<Long> knownFilms = filmExistenceIndex.existing(chunk.stream().map(line -> line.value().filmId()).toList());
+        Set<Long> knownUsers = userExistenceIndex.existing(chunk.stream().map(line -> line.value().userId()).toList());
+        List<ImportLine<Like>> valid = new ArrayList<>(chunk.size());
+        for (ImportLine<Like> line : chunk) {
+            Like like = line.value();
+            String error = checkPair(like.filmId(), like.userId(), knownFilms, "Фильм", knownUsers);
+            if (Objects.nonNull(error)) {
+                report.reject(line.number(), error);
+                continue;
+            }
+            valid.add(line);
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        Written<Like> written = write(valid, report, this::insertLikes);
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (Like like : written.results()) {
+            deltas.merge(like.filmId(), 1, Integer::sum);
+            recommendationEngine.like(like.userId(), like.filmId());
+            entityVersions.bump(Entity.FILM, like.filmId());
+        }
+        popularityIndex.changeLikes(deltas);
+        directorFilmIndex.changeLikes(deltas);
+        report.accept(written.lines());
+    }
+
+    public void importFriends(List<ImportLine<Friendship>> chunk, ImportReport report) {
+        Set<Long> knownUsers = userExistenceIndex.existing(chunk.stream()
+                .flatMap(line -> Stream.of(line.value().userId(), line.value().friendId()))
+                .toList());
+        List<ImportLine<Friendship>> valid = new ArrayList<>(chunk.size());
+        for (ImportLine<Friendship> line : chunk) {
+            Friendship friendship = line.value();
+            String error = checkPair(friendship.friendId(), friendship.userId(), knownUsers, "Пользователь",
+                    knownUsers);
+            if (Objects.isNull(error) && friendship.userId().equals(friendship.friendId())) {
+                error = "Нельзя добавить в друзья самого себя.";
+            }
+            if (Objects.nonNull(error)) {
+                report.reject(line.number(), error);
+                continue;
+            }
+            valid.add(line);
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        Written<Friendship> written = write(valid, report, this::insertFriendships);
+        written.results().forEach(friendship -> friendGraph.add(friendship.userId(), friendship.friendId()));
+        report.accept(written.lines());
+    }
+
+    private List<Long> insertFilms(List<ImportLine<Film>> lines) {
+        String sql = """
+                INSERT INTO films (name, description, release, duration, rating_id)
+                VALUES (:name, :description, :release, :duration, :ratingId)
+                """;
+        SqlParameterSource[] params = lines.stream()
+                .map(ImportLine::value)
+                .map(film -> new MapSqlParameterSource()
+                        .addValue("name", film.getName())
+                        .addValue("description", film.getDescription())
+                        .addValue("release", Date.valueOf(film.getReleaseDate()))
+                        .addValue("duration", film.getDuration())
+                        .addValue("ratingId", film.getMpa().getId()))
+                .toArray(SqlParameterSource[]::new);
+        List<Long> filmIds = insertReturningIds(sql, params);
+        List<SqlParameterSource> genres = new ArrayList<>();
+        List<SqlParameterSource> directors = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            Film film = lines.get(i).value();
+            Long filmId = filmIds.get(i);
+            ids(film.getGenres(), Genre::getId).forEach(genreId -> genres.add(new MapSqlParameterSource()
+                    .addValue("filmId", filmId)
+                    .addValue("genreId", genreId)));
+            ids(film.getDirectors(), Director::getId).forEach(directorId -> directors.add(new MapSqlParameterSource()
+                    .addValue("filmId", filmId)
+                    .addValue("directorId", directorId)));
+        }
+        if (!genres.isEmpty()) {
+            namedParameterJdbcTemplate.batchUpdate(
+                    "INSERT INTO genres_films (film_id, genre_id) VALUES (:filmId, :genreId)",
+                    genres.toArray(SqlParameterSource[]::new));
+        }
+        if (!directors.isEmpty()) {
+            namedParameterJdbcTemplate.batchUpdate(
+                    "INSERT INTO directors_films (film_id, director_id) VALUES (:filmId, :directorId)",
+                    directors.toArray(SqlParameterSource[]::new));
+        }
+        return filmIds;
+    }
+
+    private List<Long> insertUsers(List<ImportLine<User>> lines) {
+        String sql = "INSERT INTO users (name, login, email, birthday) VALUES (:name, :login, :email, :birthday)";
+        SqlParameterSource[] params = lines.stream()
+                .map(ImportLine::value)
+                .map(user -> new MapSqlParameterSource()
+                        .addValue("name", user.getName())
+                        .addValue("login", user.getLogin())
+                        .addValue("email", user.getEmail())
+                        .addValue("birthday", user.getBirthday()))
+                .toArray(SqlParameterSource[]::new);
+        return insertReturningIds(sql, params);
+    }
+
+    //уже поставленные лайки отбрасываются одним запросом, счетчики фильмов меняются одним пакетом
+    private List<Like> insertLikes(List<ImportLine<Like>> lines) {
+        Set<Like> likes = lines.stream().map(ImportLine::value).collect(Collectors.toCollection(LinkedHashSet::new));
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("filmIds", likes.stream().map(Like::filmId).collect(Collectors.toSet()))
+                .addValue("userIds", likes.stream().map(Like::userId).collect(Collectors.toSet()));
+        Set<Like> existing = new HashSet<>();
+        namedParameterJdbcTemplate.query("SELECT film_id, user_id FROM likes WHERE film_id IN (:filmIds) "
+                + "AND user_id IN (:userIds)", params, rs -> {
+                    existing.add(new Like(rs.getLong("film_id"), rs.getLong("user_id")));
+                });
+        List<Like> inserted = likes.stream().filter(like -> !existing.contains(like)).toList();
+        if (inserted.isEmpty()) {
+            return inserted;
+        }
+        namedParameterJdbcTemplate.batchUpdate("INSERT INTO likes (film_id, user_id) VALUES (:filmId, :userId)",
+                inserted.stream()
+                        .map(like -> new MapSqlParameterSource()
+                                .addValue("filmId", like.filmId())
+                                .addValue("userId", like.userId()))
+                        .toArray(SqlParameterSource[]::new));
+        Map<Long, Integer> deltas = new HashMap<>();
+        inserted.forEach(like -> deltas.merge(like.filmId(), 1, Integer::sum));
+        namedParameterJdbcTemplate.batchUpdate("UPDATE films SET likes_count = likes_count + :delta WHERE id = :id",
+                deltas.entrySet().stream()
+                        .map(delta -> new MapSqlParameterSource()
+                                .addValue("id", delta.getKey())
+                                .addValue("delta", delta.getValue()))
+                        .toArray(SqlParameterSource[]::new));
+        return inserted;
+    }
+
+    private List<Friendship> insertFriendships(List<ImportLine<Friendship>> lines) {
+        List<Friendship> inserted = lines.stream()
+                .map(ImportLine::value)
+                .filter(friendship -> !friendGraph.areFriends(friendship.userId(), friendship.friendId()))
+                .distinct()
+                .toList();
+        if (!inserted.isEmpty()) {
+            String sql = "INSERT INTO friends (user_id, friend_id) VALUES (:userId, :friendId)";
+            namedParameterJdbcTemplate.batchUpdate(sql,
+                    inserted.stream()
+                            .map(friendship -> new MapSqlParameterSource()
+                                    .addValue("userId", friendship.userId())
+                                    .addValue("friendId", friendship.friendId()))
+                            .toArray(SqlParameterSource[]::new));
+        }
+        return inserted;
+    }
+
+    private List<Long> insertReturningIds(String sql, SqlParameterSource[] params) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        namedParameterJdbcTemplate.batchUpdate(sql, params, keyHolder, new String[]{"id"});
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    //порция пишется в одной транзакции; если БД ее отклонила, строки пишутся по одной, как в EventWriter
+    private <T, R> Written<R> write(List<ImportLine<T>> lines, ImportReport report,
+                                    Function<List<ImportLine<T>>, List<R>> writer) {
+        try {
+            return new Written<>(Objects.requireNonNull(transactionTemplate.execute(status -> writer.apply(lines))),
+                    lines.size());
+        } catch (DataAccessException e) {
+            log.warn("Порция из {} строк не записана пакетом, запись по одной строке: {}", lines.size(),
+                    e.getMostSpecificCause().getMessage());
+        }
+        List<R> results = new ArrayList<>();
+        int written = 0;
+        for (ImportLine<T> line : lines) {
+            try {
+                results.addAll(Objects.requireNonNull(
+                        transactionTemplate.execute(status -> writer.apply(List.of(line)))));
+                written++;
+            } catch (DataAccessException e) {
+                report.reject(line.number(), "Ошибка записи: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+        return new Written<>(results, written);
+    }
+
+    private Set<Long> findExistingDirectors(List<ImportLine<Film>> chunk) {
+        Set<Long> directorIds = chunk.stream()
+                .flatMap(line -> ids(line.value().getDirectors(), Director::getId).stream())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (directorIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList("SELECT id FROM directors WHERE id IN (:ids)",
+                Map.of("ids", directorIds), Long.class));
+    }
+
+    private static String checkPair(Long firstId, Long userId, Set<Long> knownFirst, String firstName,
+                                    Set<Long> knownUsers) {
+        if (Objects.isNull(firstId) || Objects.isNull(userId)) {
+            return "Не указан id.";
+        }
+        if (!knownFirst.contains(firstId)) {
+            return firstName + " " + firstId + " не найден.";
+        }
+        if (!knownUsers.contains(userId)) {
+            return "Пользователь " + userId + " не найден.";
+        }
+        return null;
+    }
+
+    private static <T> Set<Long> ids(List<T> items, Function<T, Long> id) {
+        if (Objects.isNull(items)) {
+            return Set.of();
+        }
+        return items.stream().map(id).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static void checkLength(String value, String field) {
+        if (Objects.nonNull(value) && value.length() > Constants.MAX_NAME_LENGTH) {
+            throw new ValidationException(field + " длиннее " + Constants.MAX_NAME_LENGTH + " символов.");
+        }
+    }
+
+    //results - записанные сущности, lines - число принятых строк порции
+    private record Written<R>(List<R> results, int lines) {
+    }
+
+}
@@ -0,0 +1,4 @@
+package ru.yandex.practicum.filmorate.storage.bulk;
+
+public record ImportLine<T>(long number, T value) {
+}
@@ -10,12 +10,19 @@ import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.helper.EntityVersions;
+import ru.yandex.practicum.filmorate.helper.EntityVersions.Entity;
+import ru.yandex.practicum.filmorate.helper.TransactionHooks;
 import ru.yandex.practicum.filmorate.mapper.DirectorMapper;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.validation.DirectorValidator;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -32,6 +39,10 @@ public class DirectorDbStorage {
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final DirectorMapper mapper;
     private final DirectorValidator validator;
+    private final FilmSearchIndex filmSearchIndex;
+    private final EntityVersions entityVersions;
+    private final FilmCache filmCache;
+    private final DirectorFilmIndex directorFilmIndex;
 
     public List<Director> findAll() {
         log.info("Запрошен список режиссеров");
@@ -48,6 +59,13 @@ public class DirectorDbStorage {
         }
     }
 
+    public void checkExists(Long id) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM directors WHERE id = :id)";
+        if (!Boolean.TRUE.equals(namedParameterJdbcTemplate.queryForObject(sql, Map.of("id", id), Boolean.class))) {
+            throw new NotFoundException(String.format("Режиссер с id %d не найден", id));
+        }
+    }
+
     public Director create(Director newDirector) {
         validator.forCreate(newDirector);
         String sql = "INSERT INTO directors (name) VALUES(:name)";
@@ -59,7 +77,11 @@ public class DirectorDbStorage {
 
         Long id = Objects.requireNonNull(keyHolder.getKey()).longValue();
         Director director = findDirectorById(id);
-        log.info(String.format("Добавлен режиссер %s с id = %d", director.getName(), director.getId()));
+        TransactionHooks.afterCommit(() -> {
+            filmSearchIndex.putDirector(director);
+            entityVersions.bump(Entity.DIRECTOR, id);
+        });
+        log.info("Добавлен режиссер {} с id = {}", director.getName(), director.getId());
         return director;
     }
 
@@ -68,14 +90,30 @@ public class DirectorDbStorage {
         Long id = updatedDirector.getId();
         String sql = "UPDATE directors SET name = COALESCE(:name, name) WHERE id = :id";
         namedParameterJdbcTemplate.update(sql, Map.of("name", updatedDirector.getName(), "id", id));
-        log.info("Обновлен режиссер с id = " + id);
-        return findDirectorById(id);
+        log.info("Обновлен режиссер с id = {}", id);
+        Director director = findDirectorById(id);
+        //режиссеры входят в ответ по фильму, поэтому меняются версии и всех фильмов
+        TransactionHooks.afterCommit(() -> {
+            filmSearchIndex.putDirector(director);
+            filmCache.evictByDirector(id);
+            entityVersions.bump(Entity.DIRECTOR, id);
+            entityVersions.bumpAll(Entity.FILM);
+        });
+        return director;
     }
 
     public boolean deleteById(Long id) {
         log.info("Начало удаление режиссера по id - {}", id);
         String sql = "DELETE FROM directors WHERE id = :id;";
-        return namedParameterJdbcTemplate.update(sql, Map.of("id", id)) > 0;
+        boolean deleted = namedParameterJdbcTemplate.update(sql, Map.of("id", id)) > 0;
+        TransactionHooks.afterCommit(() -> {
+            filmSearchIndex.removeDirector(id);
+            filmCache.evictByDirector(id);
+            directorFilmIndex.removeDirector(id);
+            entityVersions.bump(Entity.DIRECTOR, id);
+            entityVersions.bumpAll(Entity.FILM);
+        });
+        return deleted;
     }
 
     public List<Director> findFilmDirectors(Long id) {
@@ -87,10 +125,30 @@ public class DirectorDbStorage {
         return namedParameterJdbcTemplate.query(sql, Map.of("id", id), mapper);
     }
 
+    public Map<Long, List<Director>> findFilmsDirectors(Collection<Long> filmIds) {
+        Map<Long, List<Director>> filmsDirectors = new HashMap<>();
+        if (filmIds.isEmpty()) {
+            return filmsDirectors;
+        }
+        String sql = """
+                SELECT df.film_id, d.id, d.name
+                FROM directors_films df
+                JOIN directors d ON d.id = df.director_id
+                WHERE df.film_id IN (:ids)
+                ORDER BY df.film_id, d.id
+                """;
+        namedParameterJdbcTemplate.query(sql, Map.of("ids", filmIds), rs -> {
+            filmsDirectors.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>())
+                    .add(mapper.mapRow(rs, rs.getRow()));
+        });
+        return filmsDirectors;
+    }
+
     public void addDirectorsToFilm(Film film) {
         Long filmId = film.getId();
         String sql = "DELETE FROM directors_films WHERE film_id = :filmId;";
         namedParameterJdbcTemplate.update(sql, Map.of("filmId", filmId));
+        TransactionHooks.afterCommit(() -> filmCache.evict(filmId));
         List<Director> directors = film.getDirectors();
         if (isEmpty(film.getDirectors())) {
             return;
@@ -0,0 +1,185 @@
+package ru.yandex.practicum.filmorate.storage.director;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.helper.SortedLongArrays;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.RebuildableIndex;
+import ru.yandex.practicum.filmorate.storage.likes.PopularityIndex;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Фильмографии режиссеров для /films/director/{id}: фильмы каждого режиссера в двух порядках -
+ * по дате выпуска и по убыванию лайков. Устроен как {@link PopularityIndex}: каждый порядок - неизменяемый
+ * отсортированный массив ключей, запись подменяет его копией, поэтому страницы читаются из целого снимка.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class DirectorFilmIndex implements RebuildableIndex {
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private volatile State state = new State();
+
+    @PostConstruct
+    @Override
+    public void rebuild() {
+        State fresh = new State();
+        //один запрос: фильм, удаленный между двумя отдельными чтениями, оставлял бы режиссеров без фильма
+        String sql = """
+                SELECT f.id, f.release, f.likes_count, df.director_id
+                FROM films f
+                JOIN directors_films df ON df.film_id = f.id
+                """;
+        Map<Long, Stats> rows = new HashMap<>();
+        Map<Long, Set<Long>> filmsDirectors = new HashMap<>();
+        namedParameterJdbcTemplate.query(sql, rs -> {
+            Date release = rs.getDate("release");
+            if (Objects.isNull(release)) {
+                //без даты выпуска фильму нет места в порядке по дате
+                return;
+            }
+            long filmId = rs.getLong("id");
+            filmsDirectors.computeIfAbsent(filmId, id -> new HashSet<>()).add(rs.getLong("director_id"));
+            if (!rows.containsKey(filmId)) {
+                rows.put(filmId, new Stats(filmId, release.toLocalDate().toEpochDay(),
+                        rs.getInt("likes_count"), Set.of()));
+            }
+        });
+        Map<Long, Stats> films = new HashMap<>();
+        rows.forEach((filmId, stats) -> films.put(filmId, new Stats(filmId, stats.release(), stats.likes(),
+                Set.copyOf(filmsDirectors.get(filmId)))));
+        fresh.update(films);
+        synchronized (this) {
+            state = fresh;
+        }
+        log.info("Индекс фильмографий построен, фильмов с режиссерами: {}", fresh.films.size());
+    }
+
+    public boolean hasFilms(Long directorId) {
+        return state.byRelease.containsKey(directorId);
+    }
+
+    /**
+     * Страница фильмографии: id фильмов по убыванию лайков или по дате выпуска, начиная с offset.
+     */
+    public List<Long> page(Long directorId, boolean byLikes, int offset, int limit) {
+        State current = state;
+        long[] keys = (byLikes ? current.byLikes : current.byRelease).getOrDefault(directorId,
+                SortedLongArrays.EMPTY);
+        int end = (int) Math.min(keys.length, (long) offset + limit);
+        List<Long> result = new ArrayList<>(Math.max(0, Math.min(end - offset, 1024)));
+        for (int i = offset; i < end; i++) {
+            result.add(SortedLongArrays.unpackId(keys[i]));
+        }
+        return result;
+    }
+
+    public synchronized void putFilm(Film film) {
+        Stats previous = state.films.get(film.getId());
+        int likes = Objects.nonNull(previous) ? previous.likes()
+                : Objects.requireNonNullElse(film.getLikesCount(), 0);
+        Set<Long> directorIds = Objects.isNull(film.getDirectors()) ? Set.of()
+                : film.getDirectors().stream().map(Director::getId).collect(Collectors.toUnmodifiableSet());
+        Map<Long, Stats> changes = new HashMap<>();
+        changes.put(film.getId(), directorIds.isEmpty() ? null
+                : new Stats(film.getId(), film.getReleaseDate().toEpochDay(), likes, directorIds));
+        state.update(changes);
+    }
+
+    public void changeLikes(Long filmId, int delta) {
+        changeLikes(Map.of(filmId, delta));
+    }
+
+    public synchronized void changeLikes(Map<Long, Integer> deltas) {
+        Map<Long, Stats> changes = new HashMap<>();
+        deltas.forEach((filmId, delta) -> {
+            Stats previous = state.films.get(filmId);
+            if (Objects.nonNull(previous)) {
+                changes.put(filmId, new Stats(filmId, previous.release(), previous.likes() + delta,
+                        previous.directorIds()));
+            }
+        });
+        state.update(changes);
+    }
+
+    public synchronized void removeFilm(Long filmId) {
+        Map<Long, Stats> changes = new HashMap<>();
+        changes.put(filmId, null);
+        state.update(changes);
+    }
+
+    public synchronized void removeDirector(Long directorId) {
+        Map<Long, Stats> changes = new HashMap<>();
+        for (long key : state.byRelease.getOrDefault(directorId, SortedLongArrays.EMPTY)) {
+            Stats stats = state.films.get(SortedLongArrays.unpackId(key));
+            Set<Long> directorIds = new HashSet<>(stats.directorIds());
+            directorIds.remove(directorId);
+            changes.put(stats.filmId(), directorIds.isEmpty() ? null
+                    : new Stats(stats.filmId(), stats.release(), stats.likes(), Set.copyOf(directorIds)));
+        }
+        state.update(changes);
+    }
+
+    private record Stats(long filmId, long release, int likes, Set<Long> directorIds) {
+
+        long releaseKey() {
+            return SortedLongArrays.pack(release, filmId);
+        }
+
+        long likesKey() {
+            return SortedLongArrays.pack(Integer.MAX_VALUE - likes, filmId);
+        }
+
+    }
+
+    private static final class State {
+
+        private final Map<Long, Stats> films = new ConcurrentHashMap<>();
+        private final Map<Long, long[]> byRelease = new ConcurrentHashMap<>();
+        private final Map<Long, long[]> byLikes = new ConcurrentHashMap<>();
+
+        //null в changes убирает фильм из всех фильмографий
+        void update(Map<Long, Stats> changes) {
+            SortedLongArrays.Changes<Long> releaseEdits = new SortedLongArrays.Changes<>();
+            SortedLongArrays.Changes<Long> likesEdits = new SortedLongArrays.Changes<>();
+            changes.forEach((filmId, next) -> {
+                Stats previous = films.get(filmId);
+                if (Objects.nonNull(previous)) {
+                    for (Long directorId : previous.directorIds()) {
+                        releaseEdits.remove(directorId, previous.releaseKey());
+                        likesEdits.remove(directorId, previous.likesKey());
+                    }
+                }
+                if (Objects.nonNull(next)) {
+                    for (Long directorId : next.directorIds()) {
+                        releaseEdits.add(directorId, next.releaseKey());
+                        likesEdits.add(directorId, next.likesKey());
+                    }
+                    films.put(filmId, next);
+                } else {
+                    films.remove(filmId);
+                }
+            });
+            releaseEdits.applyTo(byRelease);
+            likesEdits.applyTo(byLikes);
+        }
+
+    }
+
+}
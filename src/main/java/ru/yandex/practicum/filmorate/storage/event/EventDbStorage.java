@@ -1,17 +1,22 @@
 package ru.yandex.practicum.filmorate.storage.event;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.mapper.EventMapper;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.validation.PageValidator;
 
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -20,57 +25,80 @@ public class EventDbStorage {
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final UserDbStorage userDbStorage;
     private final EventMapper mapper;
+    private final EventWriter eventWriter;
+    private final FriendFeedInbox friendFeedInbox;
+    private final PageValidator validatePage;
+    private Map<String, Long> operations = Map.of();
+    private Map<String, Long> eventTypes = Map.of();
+    private Map<String, Long> entityTypes = Map.of();
 
-    public List<Event> getUserEvents(Long userId) {
-        userDbStorage.getUser(userId);
+    @PostConstruct
+    public void loadDictionaries() {
+        operations = loadDictionary("operations");
+        eventTypes = loadDictionary("event_types");
+        entityTypes = loadDictionary("entity_types");
+    }
+
+    public List<Event> getUserEvents(Long userId, Long sinceEventId, Integer limit) {
+        if (Objects.nonNull(limit)) {
+            validatePage.forPage(limit);
+        }
+        eventWriter.flush();
         String sql = """
                 SELECT e.datetime, e.user_id, et.name AS et_name, o.name AS o_name, e.id, e.entity_id
                 FROM events e
                 JOIN operations o ON e.operation_id = o.id
                 JOIN event_types et ON e.event_type_id = et.id
                 WHERE e.user_id = :id
-                ORDER BY e.datetime;
+                AND e.id > :sinceEventId
+                ORDER BY e.id
+                LIMIT :limit
                 """;
-        return namedParameterJdbcTemplate.query(sql, Map.of("id", userId), mapper);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", userId)
+                .addValue("sinceEventId", Objects.isNull(sinceEventId) ? 0L : sinceEventId)
+                .addValue("limit", Objects.isNull(limit) ? Integer.MAX_VALUE : limit);
+        List<Event> events = namedParameterJdbcTemplate.query(sql, params, mapper);
+        if (events.isEmpty() && !userDbStorage.userExists(userId)) {
+            throw new NotFoundException("Пользователь " + userId + " не найден");
+        }
+        return events;
+    }
+
+    public List<Event> getFriendsTimeline(Long userId, Long beforeEventId, int limit) {
+        validatePage.forPage(limit);
+        if (!userDbStorage.userExists(userId)) {
+            throw new NotFoundException("Пользователь " + userId + " не найден");
+        }
+        eventWriter.flush();
+        return friendFeedInbox.timeline(userId, Objects.isNull(beforeEventId) ? Long.MAX_VALUE : beforeEventId, limit);
     }
 
     public void add(Long userId, Long entityId, String entityType, String operation, String eventType) {
-        Long operationId = getOperationIdByName(operation);
-        Long eventTypeId = getEventTypeIdByName(eventType);
-        Long entityTypeId = getEntityTypeIdByName(entityType);
-        String sql = "INSERT INTO events (user_id, entity_id, entity_type_id, operation_id, event_type_id)" +
-                "VALUES(:userId, :entityId, :entityTypeId, :operationId, :eventTypeId)";
-        namedParameterJdbcTemplate.update(sql, Map.of("userId", userId,
-                "entityId", entityId,
-                "entityTypeId", entityTypeId,
-                "operationId", operationId,
-                "eventTypeId", eventTypeId));
+        Long operationId = lookup(operations, operation, "Операция \"" + operation + "\" не найдена.");
+        Long eventTypeId = lookup(eventTypes, eventType, "Тип события \"" + eventType + "\" не найден.");
+        Long entityTypeId = lookup(entityTypes, entityType, "Сущность \"" + entityType + "\" не найдена.");
+        eventWriter.submit(new PendingEvent(userId, entityId, entityTypeId, operationId, eventTypeId,
+                operation, eventType, Instant.now()));
     }
 
-    private Long getOperationIdByName(String operation) {
-        String sql = "SELECT id FROM operations WHERE name = :operation LIMIT 1";
-        try {
-            return namedParameterJdbcTemplate.queryForObject(sql, Map.of("operation", operation), Long.class);
-        } catch (EmptyResultDataAccessException e) {
-            throw new NotFoundException("Операция \"" + operation + "\" не найдена.");
-        }
+    public void flush() {
+        eventWriter.flush();
     }
 
-    private Long getEventTypeIdByName(String eventType) {
-        String sql = "SELECT id FROM event_types WHERE name = :eventType LIMIT 1";
-        try {
-            return namedParameterJdbcTemplate.queryForObject(sql, Map.of("eventType", eventType), Long.class);
-        } catch (EmptyResultDataAccessException e) {
-            throw new NotFoundException("Тип события \"" + eventType + "\" не найден.");
-        }
+    private Map<String, Long> loadDictionary(String table) {
+        Map<String, Long> dictionary = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT id, name FROM " + table + " ORDER BY id DESC", rs -> {
+            dictionary.put(rs.getString("name"), rs.getLong("id"));
+        });
+        return Map.copyOf(dictionary);
     }
 
-    private Long getEntityTypeIdByName(String entityType) {
-        String sql = "SELECT id FROM entity_types WHERE name = :entityType LIMIT 1";
-        try {
-            return namedParameterJdbcTemplate.queryForObject(sql, Map.of("entityType", entityType), Long.class);
-        } catch (EmptyResultDataAccessException e) {
-            throw new NotFoundException("Сущность \"" + entityType + "\" не найдена.");
+    private Long lookup(Map<String, Long> dictionary, String name, String notFoundMessage) {
+        Long id = Objects.isNull(name) ? null : dictionary.get(name);
+        if (Objects.isNull(id)) {
+            throw new NotFoundException(notFoundMessage);
         }
+        return id;
     }
 }
@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.storage.event;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Event;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Отложенная запись событий ленты: события складываются в ограниченную очередь и пишутся
+ * пакетами в одной транзакции фоновым потоком, вместе с раздачей во входящие ленты подписчиков.
+ * Запись под одной блокировкой сохраняет порядок id.
+ * Если очередь заполнена, вызывающий поток сам сбрасывает ее в БД вместо потери события.
+ */
+@Slf4j
+@Component
+public class EventWriter {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO events (user_id, entity_id, entity_type_id, operation_id, event_type_id, datetime)
+            VALUES (:userId, :entityId, :entityTypeId, :operationId, :eventTypeId, :datetime)
+            """;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FriendFeedInbox friendFeedInbox;
+    private final BlockingQueue<PendingEvent> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile boolean running = true;
+    private Thread worker;
+
+    public EventWriter(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       FriendFeedInbox friendFeedInbox,
+                       @Value("${filmorate.events.queue-capacity:10000}") int queueCapacity,
+                       @Value("${filmorate.events.batch-size:500}") int batchSize,
+                       @Value("${filmorate.events.flush-interval:50ms}") Duration flushInterval) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.friendFeedInbox = friendFeedInbox;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = Thread.ofPlatform().name("event-writer").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        flush();
+    }
+
+    public void submit(PendingEvent event) {
+        while (!queue.offer(event)) {
+            flush();
+        }
+        if (queue.size() >= batchSize) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    public void flush() {
+        writeLock.lock();
+        try {
+            List<PendingEvent> batch = new ArrayList<>(batchSize);
+            List<Event> written = new ArrayList<>();
+            while (queue.drainTo(batch, batchSize) > 0) {
+                written.addAll(write(batch));
+                batch.clear();
+            }
+            if (!written.isEmpty()) {
+                friendFeedInbox.prune(written);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            LockSupport.parkNanos(flushIntervalNanos);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Ошибка фоновой записи событий", e);
+            }
+        }
+    }
+
+    private List<Event> write(List<PendingEvent> batch) {
+        List<Event> written = new ArrayList<>(batch.size());
+        try {
+            written.addAll(Objects.requireNonNull(transactionTemplate.execute(status -> insert(batch))));
+        } catch (DataAccessException e) {
+            log.warn("Пакетная запись {} событий не удалась, запись по одному: {}", batch.size(), e.getMessage());
+            for (PendingEvent event : batch) {
+                try {
+                    List<Event> single = transactionTemplate.execute(status -> insert(List.of(event)));
+                    written.addAll(Objects.requireNonNull(single));
+                } catch (DataAccessException ex) {
+                    log.error("Событие не записано: {}", ex.getMessage());
+                }
+            }
+        }
+        friendFeedInbox.fanOut(written);
+        return written;
+    }
+
+    private List<Event> insert(List<PendingEvent> batch) {
+        SqlParameterSource[] params = batch.stream().map(PendingEvent::toParams).toArray(SqlParameterSource[]::new);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        namedParameterJdbcTemplate.batchUpdate(INSERT_SQL, params, keyHolder, new String[]{"id"});
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<Event> events = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Number eventId = (Number) keys.get(i).values().iterator().next();
+            events.add(batch.get(i).toEvent(eventId.longValue()));
+        }
+        friendFeedInbox.persist(events);
+        return events;
+    }
+
+}
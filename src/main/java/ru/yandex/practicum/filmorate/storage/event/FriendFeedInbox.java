@@ -0,0 +1,250 @@
+package ru.yandex.practicum.filmorate.storage.event;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.mapper.EventMapper;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.friend.FriendGraph;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Входящие ленты друзей: событие при записи раздается всем подписчикам автора (fan-out-on-write).
+ * В памяти держится ограниченный кэш недавно прочитанных лент по inbox-capacity последних событий,
+ * более старые страницы дочитываются из таблицы friend_feed. Таблица хранит по retained-events последних
+ * событий на пользователя и чистится раз за сброс очереди событий.
+ */
+@Slf4j
+@Component
+public class FriendFeedInbox {
+
+    private static final String PAGE_SQL = """
+            SELECT e.datetime, e.user_id, et.name AS et_name, o.name AS o_name, e.id, e.entity_id
+            FROM friend_feed ff
+            JOIN events e ON ff.event_id = e.id
+            JOIN operations o ON e.operation_id = o.id
+            JOIN event_types et ON e.event_type_id = et.id
+            WHERE ff.user_id = :userId
+            AND ff.event_id < :before
+            ORDER BY ff.event_id DESC
+            LIMIT :limit
+            """;
+    //все, что старше retained-го по новизне события пользователя
+    private static final String PRUNE_SQL = """
+            DELETE FROM friend_feed
+            WHERE user_id = :userId
+            AND event_id <= (SELECT event_id FROM friend_feed
+                             WHERE user_id = :userId
+                             ORDER BY event_id DESC
+                             LIMIT 1 OFFSET :retained)
+            """;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final FriendGraph friendGraph;
+    private final EventMapper eventMapper;
+    private final int capacity;
+    private final int retained;
+    private final Cache<Long, Inbox> inboxes;
+
+    public FriendFeedInbox(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                           FriendGraph friendGraph,
+                           EventMapper eventMapper,
+                           @Value("${filmorate.feed.inbox-capacity:200}") int capacity,
+                           @Value("${filmorate.feed.retained-events:5000}") int retained,
+                           @Value("${filmorate.feed.cached-inboxes:10000}") long cachedInboxes,
+                           @Value("${filmorate.feed.inbox-idle:30m}") Duration inboxIdle) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.friendGraph = friendGraph;
+        this.eventMapper = eventMapper;
+        this.capacity = capacity;
+        this.retained = retained;
+        this.inboxes = Caffeine.newBuilder()
+                .maximumSize(cachedInboxes)
+                .expireAfterAccess(inboxIdle)
+                .build();
+    }
+
+    /**
+     * Записывает события во входящие ленты подписчиков, вызывается в транзакции записи событий.
+     */
+    public void persist(List<Event> events) {
+        List<SqlParameterSource> rows = new ArrayList<>();
+        for (Event event : events) {
+            for (long followerId : friendGraph.followers(event.getUserId())) {
+                rows.add(new MapSqlParameterSource()
+                        .addValue("userId", followerId)
+                        .addValue("eventId", event.getEventId()));
+            }
+        }
+        if (!rows.isEmpty()) {
+            String sql = "INSERT INTO friend_feed (user_id, event_id) VALUES (:userId, :eventId)";
+            namedParameterJdbcTemplate.batchUpdate(sql, rows.toArray(SqlParameterSource[]::new));
+        }
+    }
+
+    /**
+     * Обрезает ленты подписчиков авторов событий до retained-events, по одному запросу на подписчика.
+     */
+    public void prune(List<Event> events) {
+        Set<Long> followers = new HashSet<>();
+        for (Event event : events) {
+            for (long followerId : friendGraph.followers(event.getUserId())) {
+                followers.add(followerId);
+            }
+        }
+        if (followers.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] params = followers.stream()
+                .map(followerId -> new MapSqlParameterSource()
+                        .addValue("userId", followerId)
+                        .addValue("retained", retained))
+                .toArray(SqlParameterSource[]::new);
+        namedParameterJdbcTemplate.batchUpdate(PRUNE_SQL, params);
+    }
+
+    /**
+     * Добавляет записанные события в ленты, которые уже есть в памяти, события приходят по возрастанию id.
+     * Запись не продлевает жизнь ленты в кэше.
+     */
+    public void fanOut(List<Event> events) {
+        for (Event event : events) {
+            for (long followerId : friendGraph.followers(event.getUserId())) {
+                Inbox inbox = inboxes.policy().getIfPresentQuietly(followerId);
+                if (Objects.nonNull(inbox)) {
+                    inbox.push(event, capacity);
+                }
+            }
+        }
+    }
+
+    /**
+     * Страница ленты друзей от новых событий к старым, строго раньше события beforeEventId.
+     */
+    public List<Event> timeline(Long userId, long beforeEventId, int limit) {
+        Inbox inbox = inbox(userId);
+        List<Event> page = new ArrayList<>(limit);
+        boolean complete;
+        synchronized (inbox) {
+            for (Event event : inbox.events) {
+                if (page.size() == limit) {
+                    break;
+                }
+                if (event.getEventId() < beforeEventId) {
+                    page.add(event);
+                }
+            }
+            complete = inbox.complete;
+        }
+        if (page.size() < limit && !complete) {
+            long cursor = page.isEmpty() ? beforeEventId : page.getLast().getEventId();
+            page.addAll(query(userId, cursor, limit - page.size()));
+        }
+        return page;
+    }
+
+    /**
+     * Убирает из ленты пользователя события бывшего друга.
+     */
+    public void unfollow(Long userId, Long friendId) {
+        String sql = """
+                DELETE FROM friend_feed
+                WHERE user_id = :userId
+                AND event_id IN (SELECT id FROM events WHERE user_id = :friendId)
+                """;
+        namedParameterJdbcTemplate.update(sql, Map.of("userId", userId, "friendId", friendId));
+    }
+
+    public void evict(Long userId) {
+        inboxes.invalidate(userId);
+    }
+
+    /**
+     * Сбрасывает ленты пользователя и всех, кто видит его события.
+     */
+    public void evictWithFollowers(Long userId) {
+        inboxes.invalidate(userId);
+        for (long followerId : friendGraph.followers(userId)) {
+            inboxes.invalidate(followerId);
+        }
+    }
+
+    /**
+     * Пустая лента кладется в кэш сразу, чтобы fanOut не пропустил события, записанные во время
+     * чтения из БД, а сам запрос выполняется вне блокировок кэша и ленты.
+     */
+    private Inbox inbox(Long userId) {
+        Inbox inbox = inboxes.get(userId, id -> new Inbox());
+        if (!inbox.loaded) {
+            List<Event> latest = query(userId, Long.MAX_VALUE, capacity);
+            inbox.load(latest, capacity);
+            log.debug("Лента друзей пользователя {} загружена в память, событий: {}", userId, latest.size());
+        }
+        return inbox;
+    }
+
+    private List<Event> query(Long userId, long before, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("before", before)
+                .addValue("limit", limit);
+        return namedParameterJdbcTemplate.query(PAGE_SQL, params, eventMapper);
+    }
+
+    private static final class Inbox {
+        private final ArrayDeque<Event> events = new ArrayDeque<>();
+        private boolean complete;
+        private volatile boolean loaded;
+
+        private synchronized void push(Event event, int capacity) {
+            Event newest = events.peekFirst();
+            if (Objects.nonNull(newest) && newest.getEventId() >= event.getEventId()) {
+                return;
+            }
+            events.addFirst(event);
+            if (events.size() > capacity) {
+                events.removeLast();
+                complete = false;
+            }
+        }
+
+        //события, пришедшие через push во время запроса, сливаются с прочитанными из БД
+        private synchronized void load(List<Event> latest, int capacity) {
+            if (loaded) {
+                return;
+            }
+            Map<Long, Event> merged = new TreeMap<>(Comparator.reverseOrder());
+            for (Event event : latest) {
+                merged.put(event.getEventId(), event);
+            }
+            for (Event event : events) {
+                merged.put(event.getEventId(), event);
+            }
+            events.clear();
+            for (Event event : merged.values()) {
+                if (events.size() == capacity) {
+                    break;
+                }
+                events.addLast(event);
+            }
+            complete = latest.size() < capacity && merged.size() <= capacity;
+            loaded = true;
+        }
+    }
+
+}
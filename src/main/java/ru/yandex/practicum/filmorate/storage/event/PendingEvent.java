@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.storage.event;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import ru.yandex.practicum.filmorate.model.Event;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+record PendingEvent(Long userId, Long entityId, Long entityTypeId, Long operationId, Long eventTypeId,
+                    String operation, String eventType, Instant createdAt) {
+
+    SqlParameterSource toParams() {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("entityId", entityId)
+                .addValue("entityTypeId", entityTypeId)
+                .addValue("operationId", operationId)
+                .addValue("eventTypeId", eventTypeId)
+                .addValue("datetime", Timestamp.from(createdAt));
+    }
+
+    Event toEvent(Long eventId) {
+        return Event.builder()
+                .timestamp(createdAt.toEpochMilli())
+                .userId(userId)
+                .eventType(eventType)
+                .operation(operation)
+                .eventId(eventId)
+                .entityId(entityId)
+                .build();
+    }
+
+}
@@ -0,0 +1,189 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementStats;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.director.DirectorDbStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Собирает фильмы после {@link ru.yandex.practicum.filmorate.mapper.FilmMapper}: жанры и режиссеры
+ * загружаются для всего набора id одним запросом на каждую связь, а не по запросу на строку.
+ */
+@Component
+public class FilmAssembler {
+
+    private static final int PARALLEL_QUERIES = 3;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final FilmMapper filmMapper;
+    private final GenreDbStorage genreDbStorage;
+    private final DirectorDbStorage directorDbStorage;
+    private final FilmCache filmCache;
+    private final boolean parallel;
+    //соединения пула, которые параллельная загрузка может занять сверх одного на запрос
+    private final Semaphore connections;
+
+    public FilmAssembler(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                         FilmMapper filmMapper,
+                         GenreDbStorage genreDbStorage,
+                         DirectorDbStorage directorDbStorage,
+                         FilmCache filmCache,
+                         @Value("${filmorate.film-hydration.parallel:false}") boolean parallel,
+                         @Value("${filmorate.film-hydration.max-connections:5}") int maxConnections) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.filmMapper = filmMapper;
+        this.genreDbStorage = genreDbStorage;
+        this.directorDbStorage = directorDbStorage;
+        this.filmCache = filmCache;
+        this.parallel = parallel;
+        this.connections = new Semaphore(maxConnections);
+    }
+
+    /**
+     * Дозаполняет жанры и режиссеров, для фильмов из кэша они берутся из него. Сами фильмы в кэш не кладутся:
+     * строки прочитаны вызывающим кодом раньше, чем можно взять отметку {@link FilmCache#stamp()}.
+     */
+    public List<Film> assemble(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        Set<Long> filmIds = films.stream().map(Film::getId).collect(Collectors.toSet());
+        Map<Long, Film> hits = filmCache.enabled() ? filmCache.getAll(filmIds) : Map.of();
+        filmIds.removeAll(hits.keySet());
+        Map<Long, List<Genre>> filmsGenres = genreDbStorage.findFilmsGenres(filmIds);
+        Map<Long, List<Director>> filmsDirectors = directorDbStorage.findFilmsDirectors(filmIds);
+        for (Film film : films) {
+            Film hit = hits.get(film.getId());
+            if (Objects.nonNull(hit)) {
+                film.setGenres(hit.getGenres());
+                film.setDirectors(hit.getDirectors());
+                continue;
+            }
+            film.setGenres(filmsGenres.getOrDefault(film.getId(), new ArrayList<>()));
+            film.setDirectors(filmsDirectors.getOrDefault(film.getId(), new ArrayList<>()));
+        }
+        return films;
+    }
+
+    /**
+     * Загружает и собирает фильмы по списку id, сохраняя порядок списка (например, порядок рейтинга из индекса).
+     */
+    public List<Film> findByIds(List<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        boolean cached = filmCache.enabled();
+        long stamp = filmCache.stamp();
+        Map<Long, Film> films = cached ? filmCache.getAll(filmIds) : new HashMap<>();
+        List<Long> missing = filmIds.stream().filter(id -> !films.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            String sql = "SELECT * FROM films WHERE id IN (:ids)";
+            List<Film> loaded = namedParameterJdbcTemplate.query(sql, Map.of("ids", missing), filmMapper);
+            for (Film film : assemble(loaded)) {
+                films.put(film.getId(), film);
+                if (cached) {
+                    filmCache.put(film, stamp);
+                }
+            }
+        }
+        return filmIds.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    public Film assemble(Film film) {
+        assemble(List.of(film));
+        return film;
+    }
+
+    /**
+     * Фильм по id, вне транзакции сначала из кэша. При промахе в параллельном режиме строка фильма,
+     * жанры и режиссеры читаются одновременно, каждый запрос в своем виртуальном потоке и со своим соединением.
+     * Если свободных соединений из лимита max-connections не хватает, чтение последовательное, чтобы не выбирать
+     * пул до дна. В транзакции чтение тоже последовательное: другие потоки получили бы другое соединение
+     * и не увидели бы ее незафиксированных изменений.
+     */
+    public Optional<Film> findById(Long id) {
+        if (!filmCache.enabled()) {
+            return findBase(id).map(this::assemble);
+        }
+        long stamp = filmCache.stamp();
+        Optional<Film> cached = filmCache.get(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<Film> film;
+        if (parallel && connections.tryAcquire(PARALLEL_QUERIES)) {
+            try {
+                film = load(id);
+            } finally {
+                connections.release(PARALLEL_QUERIES);
+            }
+        } else {
+            film = findBase(id).map(this::assemble);
+        }
+        film.ifPresent(loaded -> filmCache.put(loaded, stamp));
+        return film;
+    }
+
+    private Optional<Film> load(Long id) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Optional<Film>> base = executor.submit(SqlStatementStats.propagate(() -> findBase(id)));
+            Future<Map<Long, List<Genre>>> genres = executor.submit(SqlStatementStats.propagate(() ->
+                    genreDbStorage.findFilmsGenres(List.of(id))));
+            Future<Map<Long, List<Director>>> directors = executor.submit(SqlStatementStats.propagate(() ->
+                    directorDbStorage.findFilmsDirectors(List.of(id))));
+            Optional<Film> film = join(base);
+            if (film.isEmpty()) {
+                genres.cancel(true);
+                directors.cancel(true);
+                return film;
+            }
+            film.get().setGenres(join(genres).getOrDefault(id, new ArrayList<>()));
+            film.get().setDirectors(join(directors).getOrDefault(id, new ArrayList<>()));
+            return film;
+        }
+    }
+
+    private Optional<Film> findBase(Long id) {
+        return namedParameterJdbcTemplate.query("SELECT * FROM films WHERE id = :id", Map.of("id", id), filmMapper)
+                .stream()
+                .findFirst();
+    }
+
+    private static <T> T join(Future<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Загрузка фильма прервана", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.RebuildableIndex;
+import ru.yandex.practicum.filmorate.storage.likes.PopularityIndex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш собранных фильмов (строка, рейтинг, жанры, режиссеры), ограниченный примерным размером в байтах.
+ * Число лайков в кэше не хранится и берется из {@link PopularityIndex} при выдаче, поэтому лайки кэш не сбрасывают.
+ * Наружу отдаются копии, внутри транзакции кэш не используется: она может видеть незафиксированные изменения.
+ * <p>
+ * Загрузка, начатая до сброса, не должна вернуть в кэш старую версию. Для этого перед загрузкой берется
+ * отметка {@link #stamp()}, каждый сброс ее увеличивает, а {@link #put} кладет фильм только при неизменной отметке.
+ */
+@Component
+public class FilmCache implements RebuildableIndex {
+
+    private final Cache<Long, Film> cache;
+    private final PopularityIndex popularityIndex;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public FilmCache(PopularityIndex popularityIndex,
+                     MeterRegistry meterRegistry,
+                     @Value("${filmorate.film-cache.max-size:64MB}") DataSize maxSize) {
+        this.popularityIndex = popularityIndex;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher(FilmCache::weigh)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "films");
+        Gauge.builder("filmorate.film-cache.weight", cache, FilmCache::weightedSize)
+                .baseUnit("bytes")
+                .description("Примерный объем фильмов в кэше")
+                .register(meterRegistry);
+    }
+
+    public boolean enabled() {
+        return !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    public Optional<Film> get(Long id) {
+        return Optional.ofNullable(cache.getIfPresent(id)).map(this::copy);
+    }
+
+    public Map<Long, Film> getAll(Collection<Long> ids) {
+        Map<Long, Film> films = new HashMap<>();
+        cache.getAllPresent(ids).forEach((id, film) -> films.put(id, copy(film)));
+        return films;
+    }
+
+    public void put(Film film, long stamp) {
+        Film cached = film.toBuilder()
+                .genres(new ArrayList<>(film.getGenres()))
+                .directors(new ArrayList<>(film.getDirectors()))
+                .likesCount(null)
+                .build();
+        cache.asMap().compute(film.getId(), (id, present) -> invalidations.get() == stamp ? cached : present);
+    }
+
+    public void evict(Long filmId) {
+        invalidations.incrementAndGet();
+        cache.invalidate(filmId);
+    }
+
+    /**
+     * Сбрасывает все фильмы режиссера: его имя входит в ответ по каждому из них.
+     */
+    public void evictByDirector(Long directorId) {
+        invalidations.incrementAndGet();
+        cache.asMap().values().removeIf(film -> film.getDirectors().stream()
+                .map(Director::getId)
+                .anyMatch(directorId::equals));
+    }
+
+    @Override
+    public void rebuild() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private Film copy(Film film) {
+        return film.toBuilder()
+                .genres(new ArrayList<>(film.getGenres()))
+                .directors(new ArrayList<>(film.getDirectors()))
+                .likesCount(popularityIndex.likes(film.getId()))
+                .build();
+    }
+
+    private static int weigh(Long id, Film film) {
+        int chars = length(film.getName()) + length(film.getDescription());
+        for (Director director : film.getDirectors()) {
+            chars += length(director.getName());
+        }
+        for (Genre genre : film.getGenres()) {
+            chars += length(genre.getName());
+        }
+        return 256 + 2 * chars + 48 * (film.getGenres().size() + film.getDirectors().size());
+    }
+
+    private static int length(String value) {
+        return Objects.isNull(value) ? 0 : value.length();
+    }
+
+    private static double weightedSize(Cache<Long, Film> cache) {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+}
@@ -2,26 +2,35 @@ package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.helper.Constants;
+import ru.yandex.practicum.filmorate.helper.EntityVersions;
+import ru.yandex.practicum.filmorate.helper.EntityVersions.Entity;
+import ru.yandex.practicum.filmorate.helper.TransactionHooks;
 import ru.yandex.practicum.filmorate.mapper.FilmMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.director.DirectorDbStorage;
+import ru.yandex.practicum.filmorate.storage.director.DirectorFilmIndex;
 import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.likes.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.likes.RecommendationEngine;
 import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
 import ru.yandex.practicum.filmorate.validation.FilmValidator;
+import ru.yandex.practicum.filmorate.validation.PageValidator;
 
 import java.sql.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import static org.springframework.util.CollectionUtils.isEmpty;
 
@@ -35,12 +44,45 @@ public class FilmDbStorage implements FilmStorage {
     private final GenreDbStorage genreDbStorage;
     private final DirectorDbStorage directorDbStorage;
     private final FilmMapper filmMapper;
+    private final FilmAssembler filmAssembler;
     private final FilmValidator validate;
+    private final PageValidator validatePage;
+    private final PopularityIndex popularityIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final RecommendationEngine recommendationEngine;
+    private final FilmExistenceIndex filmExistenceIndex;
+    private final FilmCache filmCache;
+    private final DirectorFilmIndex directorFilmIndex;
+    private final EntityVersions entityVersions;
 
     @Override
     public List<Film> findAll() {
         log.info("Запрошен список фильмов");
-        return namedParameterJdbcTemplate.query("SELECT * FROM films", filmMapper);
+        return filmAssembler.assemble(namedParameterJdbcTemplate.query("SELECT * FROM films", filmMapper));
+    }
+
+    @Override
+    public List<Film> findPage(Long after, int limit) {
+        validatePage.forPage(limit);
+        String sql = "SELECT * FROM films WHERE id > :after ORDER BY id LIMIT :limit";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("after", Objects.isNull(after) ? 0L : after)
+                .addValue("limit", limit);
+        return filmAssembler.assemble(namedParameterJdbcTemplate.query(sql, params, filmMapper));
+    }
+
+    @Override
+    public void streamAll(Long after, Consumer<Film> consumer) {
+        log.info("Запрошена выгрузка фильмов начиная после id {}", after);
+        Long cursor = after;
+        List<Film> chunk;
+        do {
+            chunk = findPage(cursor, Constants.STREAM_CHUNK_SIZE);
+            chunk.forEach(consumer);
+            if (!chunk.isEmpty()) {
+                cursor = chunk.getLast().getId();
+            }
+        } while (chunk.size() == Constants.STREAM_CHUNK_SIZE);
     }
 
     @Override
@@ -67,8 +109,15 @@ public class FilmDbStorage implements FilmStorage {
         if (!isEmpty(newFilm.getDirectors())) {
             directorDbStorage.addDirectorsToFilm(film);
         }
-        log.info("Добавлен фильм \"" + film.getName() + "\" с id = " + id);
-        return getFilm(film.getId());
+        log.info("Добавлен фильм \"{}\" с id = {}", film.getName(), id);
+        Film created = getFilm(film.getId());
+        TransactionHooks.afterCommit(() -> {
+            filmExistenceIndex.add(id);
+            popularityIndex.put(created);
+            directorFilmIndex.putFilm(created);
+            filmSearchIndex.putFilm(created);
+        });
+        return created;
     }
 
     @Override
@@ -95,8 +144,18 @@ public class FilmDbStorage implements FilmStorage {
         namedParameterJdbcTemplate.update(sql, params);
         genreDbStorage.addGenresToFilm(newFilm);
         directorDbStorage.addDirectorsToFilm(newFilm);
-        log.info("Обновлен фильм с id = " + newFilm.getId());
-        return namedParameterJdbcTemplate.queryForObject("SELECT * FROM films WHERE id = :id", Map.of("id", id), filmMapper);
+        log.info("Обновлен фильм с id = {}", id);
+        //иначе перечитывание вернет из кэша фильм до обновления
+        filmCache.evict(id);
+        Film updated = getFilm(id);
+        TransactionHooks.afterCommit(() -> {
+            popularityIndex.put(updated);
+            directorFilmIndex.putFilm(updated);
+            filmSearchIndex.putFilm(updated);
+            filmCache.evict(id);
+            entityVersions.bump(Entity.FILM, id);
+        });
+        return updated;
     }
 
     @Override
@@ -105,7 +164,19 @@ public class FilmDbStorage implements FilmStorage {
             boolean filmExists = filmExists(id);
             if (filmExists) {
                 log.info("Начало удаление фильма - {}", id);
-                return namedParameterJdbcTemplate.update("DELETE FROM films WHERE id = :id; ", Map.of("id", id)) > 0;
+                String sql = "DELETE FROM films WHERE id = :id; ";
+                boolean deleted = namedParameterJdbcTemplate.update(sql, Map.of("id", id)) > 0;
+                TransactionHooks.afterCommit(() -> {
+                    filmExistenceIndex.remove(id);
+                    popularityIndex.remove(id);
+                    directorFilmIndex.removeFilm(id);
+                    filmSearchIndex.removeFilm(id);
+                    recommendationEngine.removeFilm(id);
+                    filmCache.evict(id);
+                    entityVersions.bump(Entity.FILM, id);
+                    entityVersions.bumpAll(Entity.REVIEW);
+                });
+                return deleted;
             } else {
                 throw new NotFoundException("Не содержит данный фильм " + id);
             }
@@ -116,42 +187,15 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public Film getFilm(Long id) {
-        try {
-            Film film = namedParameterJdbcTemplate.queryForObject("SELECT * FROM films WHERE id = :id", Map.of("id", id), filmMapper);
-            if (Objects.nonNull(film)) {
-                film.setGenres(genreDbStorage.findFilmGenres(film));
-                film.setDirectors(directorDbStorage.findFilmDirectors(id));
-                film.setGenres(genreDbStorage.findFilmGenres(film));
-            }
-            return film;
-        } catch (EmptyResultDataAccessException e) {
-            throw new NotFoundException("Фильм " + id + " не найден");
-        }
+        return filmAssembler.findById(id).orElseThrow(() -> new NotFoundException("Фильм " + id + " не найден"));
     }
 
+    //общие лайки - пересечение битовых карт из индекса рекомендаций, порядок - по числу лайков из индекса популярности
     public List<Film> getCommonPopularFilm(Long userId, Long friendId) {
-        String findCommonPopularFilms = """
-                SELECT f.*, r.name as rName, COUNT(fl.user_id) AS like_count
-                FROM films f
-                JOIN likes fl ON f.ID = fl.film_id
-                JOIN ratings r on r.ID = f.rating_id
-                WHERE fl.film_id IN (SELECT fl1.film_id
-                                     FROM likes fl1
-                                     JOIN likes fl2 ON fl1.film_id = fl2.film_id
-                                     WHERE fl1.user_id = :userId
-                                     AND fl2.user_id = :friendId)
-                GROUP BY f.id
-                ORDER BY like_count DESC
-                """;
         log.info("Поиск общих популярных фильмов пользователей с id {} и {} ", userId, friendId);
-        List<Film> commonPopularFilms = namedParameterJdbcTemplate.query(findCommonPopularFilms,
-                Map.of("userId", userId,
-                        "friendId", friendId),
-                filmMapper);
-        return commonPopularFilms.stream()
-                .peek(film -> film.setGenres(genreDbStorage.findFilmGenres(film)))
-                .peek(film -> film.setDirectors(directorDbStorage.findFilmDirectors(film.getId())))
-                .collect(Collectors.toList());
+        RoaringBitmap common = RoaringBitmap.and(recommendationEngine.likedFilms(userId),
+                recommendationEngine.likedFilms(friendId));
+        return filmAssembler.findByIds(popularityIndex.rank(common));
     }
 
     public List<Film> search(String query, String by) {
@@ -160,55 +204,37 @@ public class FilmDbStorage implements FilmStorage {
             throw new NotFoundException("Некорректные параметры запроса");
         }
         log.info("Вывод популярных фильмов, с учетом поиска по подстроке {} в поле таблицы фильмов {} ", query, by);
-        String sql =
-                """
-                        SELECT f.*, COUNT(DISTINCT l.user_id) AS cnt_likes
-                        FROM films f
-                        LEFT JOIN likes l on f.id = l.film_id
-                        LEFT JOIN directors_films df on f.id = df.film_id
-                        LEFT JOIN directors d on df.director_id = d.id
-                        WHERE (f.name ILIKE CONCAT('%', :query, '%') AND :by ILIKE '%title%')
-                           OR (d.name ILIKE CONCAT('%', :query, '%') AND :by ILIKE '%director%')
-                        GROUP BY f.id
-                        ORDER BY cnt_likes DESC
-                                """;
-        return namedParameterJdbcTemplate.query(sql, Map.of("query", query, "by", by), filmMapper);
+        List<Long> filmIds = filmSearchIndex.search(query, by.contains("title"), by.contains("director"));
+        return filmAssembler.findByIds(filmIds);
     }
 
     @Override
     public boolean filmExists(Long filmId) {
-        String sql = "SELECT EXISTS (SELECT 1 FROM films WHERE id = :filmId)";
-        return Boolean.TRUE.equals(namedParameterJdbcTemplate.queryForObject(sql, Map.of("filmId", filmId), Boolean.class));
+        return filmExistenceIndex.contains(filmId);
     }
 
-    public List<Film> getFilmsListByDirector(Long directorId, String sortBy) {
-        String sql = "SELECT film_id FROM directors_films WHERE director_id = :directorId";
-        List<Long> filmsIds = namedParameterJdbcTemplate.queryForList(sql, Map.of("directorId", directorId), Long.class);
-        if (filmsIds.isEmpty()) {
-            throw new NotFoundException("Не найдены фильмы, снятые этим режиссером");
+    public void checkExists(Long id) {
+        if (!filmExists(id)) {
+            throw new NotFoundException("Фильм " + id + " не найден");
         }
-        sql = switch (sortBy.toLowerCase()) {
-            case "likes" -> """
-                    SELECT f.*, COUNT(l.user_id) likes_count
-                    FROM films f
-                    left JOIN likes l
-                    ON f.id = l.film_id
-                    WHERE f.id IN (SELECT film_id FROM directors_films WHERE director_id = :directorId)
-                    GROUP BY f.id ORDER BY likes_count DESC
-                    """;
-            case "year" -> """
-                    SELECT *
-                    FROM films
-                    WHERE id IN (SELECT film_id FROM directors_films WHERE director_id = :directorId)
-                    ORDER BY YEAR(release)
-                    """;
-            default -> sql;
+    }
+
+    public List<Film> getFilmsListByDirector(Long directorId, String sortBy, Integer limit, int offset) {
+        boolean byLikes = switch (sortBy.toLowerCase()) {
+            case "likes" -> true;
+            case "year" -> false;
+            default -> throw new ValidationException("Некорректный параметр сортировки " + sortBy);
         };
-        List<Film> sortedFilms = namedParameterJdbcTemplate.query(sql, Map.of("directorId", directorId), filmMapper);
-        return sortedFilms.stream()
-                .peek(film -> film.setGenres(genreDbStorage.findFilmGenres(film)))
-                .peek(film -> film.setDirectors(directorDbStorage.findFilmDirectors(film.getId())))
-                .collect(Collectors.toList());
+        if (Objects.nonNull(limit)) {
+            validatePage.forPage(limit);
+        }
+        validatePage.forOffset(offset);
+        if (!directorFilmIndex.hasFilms(directorId)) {
+            throw new NotFoundException("Не найдены фильмы, снятые этим режиссером");
+        }
+        List<Long> filmIds = directorFilmIndex.page(directorId, byLikes, offset,
+                Objects.isNull(limit) ? Integer.MAX_VALUE : limit);
+        return filmAssembler.findByIds(filmIds);
     }
 
 }
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.ExistenceIndex;
+
+@Component
+public class FilmExistenceIndex extends ExistenceIndex {
+
+    public FilmExistenceIndex(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        super(namedParameterJdbcTemplate, "films");
+    }
+
+}
@@ -0,0 +1,232 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.RebuildableIndex;
+import ru.yandex.practicum.filmorate.storage.likes.PopularityIndex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Триграммный инвертированный индекс по названиям фильмов и именам режиссеров для /films/search.
+ * Кандидаты берутся из самого короткого списка среди триграмм запроса и проверяются на вхождение подстроки,
+ * которое заменяет пересечение остальных списков. Время поиска зависит от длины этого списка,
+ * а не от размера каталога. Подстроки из 1-2 символов тоже хранятся в индексе, поэтому короткий запрос
+ * отвечается одним списком без перебора названий.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class FilmSearchIndex implements RebuildableIndex {
+
+    private static final int GRAM = 3;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final PopularityIndex popularityIndex;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> titles = new HashMap<>();
+    private final Map<String, Set<Long>> titleGrams = new HashMap<>();
+    private final Map<Long, String> directorNames = new HashMap<>();
+    private final Map<String, Set<Long>> directorGrams = new HashMap<>();
+    private final Map<Long, Set<Long>> directorFilms = new HashMap<>();
+    private final Map<Long, Set<Long>> filmDirectors = new HashMap<>();
+
+    @PostConstruct
+    @Override
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            titleGrams.clear();
+            directorNames.clear();
+            directorGrams.clear();
+            directorFilms.clear();
+            filmDirectors.clear();
+            namedParameterJdbcTemplate.query("SELECT id, name FROM films", rs -> {
+                indexName(rs.getLong("id"), rs.getString("name"), titles, titleGrams);
+            });
+            namedParameterJdbcTemplate.query("SELECT id, name FROM directors", rs -> {
+                indexName(rs.getLong("id"), rs.getString("name"), directorNames, directorGrams);
+            });
+            namedParameterJdbcTemplate.query("SELECT director_id, film_id FROM directors_films", rs -> {
+                link(rs.getLong("director_id"), rs.getLong("film_id"));
+            });
+            log.info("Поисковый индекс построен: фильмов {}, режиссеров {}", titles.size(), directorNames.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> search(String query, boolean byTitle, boolean byDirector) {
+        String needle = normalize(query);
+        Set<Long> found = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            if (byTitle) {
+                found.addAll(match(needle, titles, titleGrams));
+            }
+            if (byDirector) {
+                for (Long directorId : match(needle, directorNames, directorGrams)) {
+                    found.addAll(directorFilms.getOrDefault(directorId, Set.of()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Long> ranked = new ArrayList<>(found);
+        ranked.sort(Comparator.comparingInt((Long id) -> popularityIndex.likes(id)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        return ranked;
+    }
+
+    public void putFilm(Film film) {
+        lock.writeLock().lock();
+        try {
+            unindexName(film.getId(), titles, titleGrams);
+            indexName(film.getId(), film.getName(), titles, titleGrams);
+            for (Long directorId : filmDirectors.getOrDefault(film.getId(), Set.of())) {
+                directorFilms.getOrDefault(directorId, new HashSet<>()).remove(film.getId());
+            }
+            filmDirectors.remove(film.getId());
+            if (Objects.nonNull(film.getDirectors())) {
+                film.getDirectors().forEach(director -> link(director.getId(), film.getId()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(Long filmId) {
+        lock.writeLock().lock();
+        try {
+            unindexName(filmId, titles, titleGrams);
+            for (Long directorId : filmDirectors.getOrDefault(filmId, Set.of())) {
+                directorFilms.getOrDefault(directorId, new HashSet<>()).remove(filmId);
+            }
+            filmDirectors.remove(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putDirector(Director director) {
+        lock.writeLock().lock();
+        try {
+            unindexName(director.getId(), directorNames, directorGrams);
+            indexName(director.getId(), director.getName(), directorNames, directorGrams);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeDirector(Long directorId) {
+        lock.writeLock().lock();
+        try {
+            unindexName(directorId, directorNames, directorGrams);
+            for (Long filmId : directorFilms.getOrDefault(directorId, Set.of())) {
+                filmDirectors.getOrDefault(filmId, new HashSet<>()).remove(directorId);
+            }
+            directorFilms.remove(directorId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Set<Long> match(String needle, Map<Long, String> names, Map<String, Set<Long>> grams) {
+        Set<Long> result = new HashSet<>();
+        if (needle.isEmpty()) {
+            result.addAll(names.keySet());
+            return result;
+        }
+        if (needle.length() <= GRAM) {
+            result.addAll(grams.getOrDefault(needle, Set.of()));
+            return result;
+        }
+        Set<Long> smallest = null;
+        for (String gram : grams(needle, GRAM)) {
+            Set<Long> posting = grams.get(gram);
+            if (Objects.isNull(posting)) {
+                return result;
+            }
+            if (Objects.isNull(smallest) || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        for (Long id : smallest) {
+            if (names.get(id).contains(needle)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private void link(Long directorId, Long filmId) {
+        directorFilms.computeIfAbsent(directorId, id -> new HashSet<>()).add(filmId);
+        filmDirectors.computeIfAbsent(filmId, id -> new HashSet<>()).add(directorId);
+    }
+
+    private static void indexName(Long id, String name, Map<Long, String> names, Map<String, Set<Long>> grams) {
+        if (Objects.isNull(name)) {
+            return;
+        }
+        String normalized = normalize(name);
+        names.put(id, normalized);
+        for (String gram : grams(normalized)) {
+            grams.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static void unindexName(Long id, Map<Long, String> names, Map<String, Set<Long>> grams) {
+        String previous = names.remove(id);
+        if (Objects.isNull(previous)) {
+            return;
+        }
+        for (String gram : grams(previous)) {
+            Set<Long> posting = grams.get(gram);
+            if (Objects.nonNull(posting)) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    //все подстроки длиной от 1 до GRAM
+    private static Set<String> grams(String text) {
+        Set<String> result = new HashSet<>();
+        for (int length = 1; length <= GRAM; length++) {
+            result.addAll(grams(text, length));
+        }
+        return result;
+    }
+
+    private static Set<String> grams(String text, int length) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + length <= text.length(); i++) {
+            result.add(text.substring(i, i + length));
+        }
+        return result;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+}
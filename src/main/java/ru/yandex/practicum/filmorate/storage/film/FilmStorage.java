@@ -2,11 +2,17 @@ package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
     Collection<Film> findAll();
 
+    List<Film> findPage(Long after, int limit);
+
+    void streamAll(Long after, Consumer<Film> consumer);
+
     Film create(Film newFilm);
 
     Film update(Film newFilm);
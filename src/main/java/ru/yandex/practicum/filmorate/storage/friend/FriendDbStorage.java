@@ -2,12 +2,19 @@ package ru.yandex.practicum.filmorate.storage.friend;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.helper.TransactionHooks;
 import ru.yandex.practicum.filmorate.mapper.UserMapper;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.event.FriendFeedInbox;
 import ru.yandex.practicum.filmorate.validation.FriendValidator;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 
@@ -18,39 +25,51 @@ public class FriendDbStorage {
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final FriendValidator validate;
     private final UserMapper userMapper;
+    private final FriendGraph friendGraph;
+    private final FriendFeedInbox friendFeedInbox;
 
     public void addFriend(Long userId, Long friendId) {
         validate.forAdd(userId, friendId);
         String sql = "INSERT INTO friends (user_id, friend_id) VALUES(:userId, :friendId)";
-        namedParameterJdbcTemplate.update(sql, Map.of("userId", userId, "friendId", friendId));
+        try {
+            namedParameterJdbcTemplate.update(sql, Map.of("userId", userId, "friendId", friendId));
+        } catch (DuplicateKeyException e) {
+            //параллельный запрос успел добавить ту же дружбу после проверки
+            throw new ValidationException("Пользователи " + userId + " и " + friendId + " уже дружат.");
+        }
+        TransactionHooks.afterCommit(() -> friendGraph.add(userId, friendId));
         log.info("Пользователи {} и {} подружились.", userId, friendId);
     }
 
+    @Transactional
     public void deleteFriend(Long userId, Long friendId) {
         validate.forDelete(userId, friendId);
         String sql = "DELETE FROM friends WHERE user_id = :userId AND friend_id = :friendId";
         namedParameterJdbcTemplate.update(sql, Map.of("userId", userId, "friendId", friendId));
+        friendFeedInbox.unfollow(userId, friendId);
+        TransactionHooks.afterCommit(() -> {
+            friendGraph.remove(userId, friendId);
+            friendFeedInbox.evict(userId);
+        });
         log.info("Пользователи {} и {} больше не друзья.", userId, friendId);
     }
 
     public Collection<User> findFriends(Long id) {
         validate.forFind(id);
-        String sql = "SELECT u.* " + "FROM users u " + "JOIN friends f ON f.friend_id = u.id WHERE f.user_id = :id ORDER BY u.id ";
-        return namedParameterJdbcTemplate.query(sql, Map.of("id", id), userMapper);
+        return findUsers(friendGraph.friends(id));
     }
 
     public Collection<User> findCommonFriends(Long userId, Long otherId) {
         validate.forCommonFriends(userId, otherId);
-        String sql = """
-                    SELECT u.*
-                    FROM users u
-                    JOIN friends f1 ON f1.friend_id = u.id
-                    JOIN friends f2 ON f2.friend_id = u.id
-                    WHERE f1.user_id = :userId
-                    AND f2.user_id = :otherId
-                    ORDER BY u.id
-                """;
-        return namedParameterJdbcTemplate.query(sql, Map.of("userId", userId, "otherId", otherId), userMapper);
+        return findUsers(friendGraph.commonFriends(userId, otherId));
+    }
+
+    private Collection<User> findUsers(long[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT * FROM users WHERE id IN (:ids) ORDER BY id";
+        return namedParameterJdbcTemplate.query(sql, Map.of("ids", Arrays.stream(ids).boxed().toList()), userMapper);
     }
 
 }
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.storage.friend;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.helper.SortedLongArrays;
+import ru.yandex.practicum.filmorate.storage.RebuildableIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ru.yandex.practicum.filmorate.helper.SortedLongArrays.sorted;
+import static ru.yandex.practicum.filmorate.helper.SortedLongArrays.with;
+import static ru.yandex.practicum.filmorate.helper.SortedLongArrays.without;
+
+/**
+ * Граф дружбы в памяти: для каждого пользователя отсортированные массивы id друзей и подписчиков.
+ * Массивы не меняются после публикации, запись создает новую копию, поэтому чтение идет без блокировок.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class FriendGraph implements RebuildableIndex {
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final Map<Long, long[]> friends = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> followers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    @Override
+    public synchronized void rebuild() {
+        Map<Long, List<Long>> outgoing = new HashMap<>();
+        Map<Long, List<Long>> incoming = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT user_id, friend_id FROM friends", rs -> {
+            long userId = rs.getLong("user_id");
+            long friendId = rs.getLong("friend_id");
+            outgoing.computeIfAbsent(userId, id -> new ArrayList<>()).add(friendId);
+            incoming.computeIfAbsent(friendId, id -> new ArrayList<>()).add(userId);
+        });
+        friends.clear();
+        followers.clear();
+        outgoing.forEach((userId, ids) -> friends.put(userId, sorted(ids)));
+        incoming.forEach((userId, ids) -> followers.put(userId, sorted(ids)));
+        log.info("Граф дружбы построен, пользователей с друзьями: {}", friends.size());
+    }
+
+    public long[] friends(Long userId) {
+        return friends.getOrDefault(userId, SortedLongArrays.EMPTY);
+    }
+
+    public long[] followers(Long userId) {
+        return followers.getOrDefault(userId, SortedLongArrays.EMPTY);
+    }
+
+    public boolean areFriends(Long userId, Long friendId) {
+        return Arrays.binarySearch(friends(userId), friendId) >= 0;
+    }
+
+    public long[] commonFriends(Long userId, Long otherId) {
+        long[] first = friends(userId);
+        long[] second = friends(otherId);
+        long[] common = new long[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                common[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(common, size);
+    }
+
+    public synchronized void add(Long userId, Long friendId) {
+        friends.put(userId, with(friends(userId), friendId));
+        followers.put(friendId, with(followers(friendId), userId));
+    }
+
+    public synchronized void remove(Long userId, Long friendId) {
+        friends.put(userId, without(friends(userId), friendId));
+        followers.put(friendId, without(followers(friendId), userId));
+    }
+
+    public synchronized void removeUser(Long userId) {
+        for (long friendId : friends(userId)) {
+            followers.put(friendId, without(followers(friendId), userId));
+        }
+        for (long followerId : followers(userId)) {
+            friends.put(followerId, without(friends(followerId), userId));
+        }
+        friends.remove(userId);
+        followers.remove(userId);
+    }
+
+}
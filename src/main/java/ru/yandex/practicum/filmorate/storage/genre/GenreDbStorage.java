@@ -2,14 +2,15 @@ package ru.yandex.practicum.filmorate.storage.genre;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.namedparam.*;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.CollectionUtils;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
-import ru.yandex.practicum.filmorate.mapper.GenreMapper;
+import ru.yandex.practicum.filmorate.helper.TransactionHooks;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceCatalog;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -19,25 +20,38 @@ import java.util.stream.Collectors;
 public class GenreDbStorage {
 
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
-    private final GenreMapper mapper;
+    private final ReferenceCatalog referenceCatalog;
+    private final FilmCache filmCache;
 
     public Collection<Genre> findAll() {
-        String sql = "SELECT * FROM genres ORDER BY id";
-        return namedParameterJdbcTemplate.query(sql, mapper);
+        return referenceCatalog.findAllGenres();
     }
 
     public Genre findGenre(Long id) {
-        String sql = "SELECT * FROM genres WHERE id = :id";
-        try {
-            return namedParameterJdbcTemplate.queryForObject(sql, Map.of("id", id), mapper);
-        } catch (EmptyResultDataAccessException e) {
-            return null;
-        }
+        return referenceCatalog.findGenre(id);
     }
 
     public List<Genre> findFilmGenres(Film film) {
-        String sql = "SELECT g.* FROM genres g JOIN genres_films gf ON g.id = gf.genre_id WHERE gf.film_id = :id";
-        return namedParameterJdbcTemplate.query(sql, Map.of("id", film.getId()), mapper);
+        String sql = "SELECT genre_id FROM genres_films WHERE film_id = :id ORDER BY genre_id";
+        return namedParameterJdbcTemplate.queryForList(sql, Map.of("id", film.getId()), Long.class).stream()
+                .map(referenceCatalog::findGenre)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    public Map<Long, List<Genre>> findFilmsGenres(Collection<Long> filmIds) {
+        Map<Long, List<Genre>> filmsGenres = new HashMap<>();
+        if (filmIds.isEmpty()) {
+            return filmsGenres;
+        }
+        String sql = "SELECT film_id, genre_id FROM genres_films WHERE film_id IN (:ids) ORDER BY film_id, genre_id";
+        namedParameterJdbcTemplate.query(sql, Map.of("ids", filmIds), rs -> {
+            Genre genre = referenceCatalog.findGenre(rs.getLong("genre_id"));
+            if (Objects.nonNull(genre)) {
+                filmsGenres.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>()).add(genre);
+            }
+        });
+        return filmsGenres;
     }
 
     public void addGenresToFilm(Film film) {
@@ -55,6 +69,7 @@ public class GenreDbStorage {
         deleteParams.put("id", film.getId());
         deleteParams.put("genreIds", genreIds);
         namedParameterJdbcTemplate.update(sql, deleteParams);
+        TransactionHooks.afterCommit(() -> filmCache.evict(film.getId()));
 
         if (!CollectionUtils.isEmpty(genreIds)) {
             String mergeSql =
@@ -79,14 +94,7 @@ public class GenreDbStorage {
         if (genreIds.isEmpty()) {
             return;
         }
-        String sql = "SELECT COUNT(*) FROM genres WHERE id IN (:genreIds)";
-
-        Map<String, Object> params = new HashMap<>();
-        params.put("genreIds", genreIds);
-
-        Integer count = namedParameterJdbcTemplate.queryForObject(sql, params, Integer.class);
-
-        if (Objects.nonNull(count) && count != genreIds.size()) {
+        if (!referenceCatalog.containsGenres(genreIds)) {
             throw new ValidationException("Некоторых жанров не существует.");
         }
     }
@@ -2,11 +2,17 @@ package ru.yandex.practicum.filmorate.storage.likes;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
-import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.helper.EntityVersions;
+import ru.yandex.practicum.filmorate.helper.EntityVersions.Entity;
+import ru.yandex.practicum.filmorate.helper.TransactionHooks;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.director.DirectorFilmIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmAssembler;
 import ru.yandex.practicum.filmorate.validation.LikeValidator;
 
 import java.util.List;
@@ -16,44 +22,57 @@ import java.util.List;
 @Repository
 public class LikeDbStorage {
 
-    private final FilmMapper filmMapper;
+    private final FilmAssembler filmAssembler;
     private final LikeValidator validate;
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final PopularityIndex popularityIndex;
+    private final RecommendationEngine recommendationEngine;
+    private final EntityVersions entityVersions;
+    private final DirectorFilmIndex directorFilmIndex;
     MapSqlParameterSource params;
 
+    @Transactional
     public void like(Long id, Long userId) {
         validate.forLike(id, userId);
-        String sql = "MERGE INTO likes (film_id, user_id) KEY (film_id, user_id) VALUES(:id, :userId)";
-        namedParameterJdbcTemplate.update(sql, addParams(id, userId));
+        MapSqlParameterSource likeParams = addParams(id, userId);
+        try {
+            namedParameterJdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES(:id, :userId)", likeParams);
+        } catch (DuplicateKeyException e) {
+            log.info("Пользователь {} уже ставил лайк фильму {}", userId, id);
+            return;
+        }
+        namedParameterJdbcTemplate.update("UPDATE films SET likes_count = likes_count + 1 WHERE id = :id", likeParams);
+        TransactionHooks.afterCommit(() -> {
+            popularityIndex.changeLikes(id, 1);
+            directorFilmIndex.changeLikes(id, 1);
+            recommendationEngine.like(userId, id);
+            entityVersions.bump(Entity.FILM, id);
+        });
         log.info("Пользователь {} поставил лайк фильму {}", userId, id);
     }
 
+    @Transactional
     public void removeLike(Long id, Long userId) {
         validate.forRemove(id, userId);
+        MapSqlParameterSource likeParams = addParams(id, userId);
         String sql = "DELETE FROM likes WHERE film_id = :id AND user_id = :userId";
-        namedParameterJdbcTemplate.update(sql, addParams(id, userId));
+        if (namedParameterJdbcTemplate.update(sql, likeParams) > 0) {
+            sql = "UPDATE films SET likes_count = likes_count - 1 WHERE id = :id";
+            namedParameterJdbcTemplate.update(sql, likeParams);
+            TransactionHooks.afterCommit(() -> {
+                popularityIndex.changeLikes(id, -1);
+                directorFilmIndex.changeLikes(id, -1);
+                recommendationEngine.unlike(userId, id);
+                entityVersions.bump(Entity.FILM, id);
+            });
+        }
         log.info("Пользователь {} убрал лайк у фильма {}", userId, id);
     }
 
     public List<Film> topFilms(Long genreId, Integer year, int count) {
-        params = new MapSqlParameterSource();
         validate.forTopFilms(count);
         log.info("Вывод популярных фильмов, с фильтрацией и без по жанру и годам genre_id {} и Year {} ", genreId, year);
-        String sql =
-                """
-                                SELECT f.*, COUNT(DISTINCT l.user_id) AS cnt_likes
-                                       FROM films f
-                                       LEFT JOIN likes l on f.id = l.film_id
-                                       LEFT JOIN genres_films gf on f.id = gf.film_id
-                                       WHERE (gf.genre_id = :genreId OR :genreId IS NULL) AND (YEAR(f.release) = :year OR :year IS NULL)
-                                       GROUP BY f.id
-                                       ORDER BY cnt_likes DESC
-                                       LIMIT :count
-                        """;
-        params.addValue("genreId", genreId);
-        params.addValue("year", year);
-        params.addValue("count", count);
-        return namedParameterJdbcTemplate.query(sql, params, filmMapper);
+        return filmAssembler.findByIds(popularityIndex.top(genreId, year, count));
     }
 
     private MapSqlParameterSource addParams(Long id, Long userId) {
@@ -0,0 +1,185 @@
+package ru.yandex.practicum.filmorate.storage.likes;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.helper.SortedLongArrays;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.RebuildableIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс популярности фильмов для /films/popular: общий рейтинг, рейтинг по жанру, по году выпуска и по жанру
+ * и году вместе. Каждый рейтинг - отсортированный массив ключей (лайки, id), который после публикации не меняется:
+ * запись сериализована и подменяет массив новой копией, поэтому читатель видит целый снимок рейтинга.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class PopularityIndex implements RebuildableIndex {
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private volatile State state = new State();
+
+    @PostConstruct
+    @Override
+    public void rebuild() {
+        State fresh = new State();
+        Map<Long, List<Long>> filmsGenres = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT film_id, genre_id FROM genres_films", rs -> {
+            filmsGenres.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>()).add(rs.getLong("genre_id"));
+        });
+        Map<Long, Stats> films = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT id, likes_count, release FROM films", rs -> {
+            long filmId = rs.getLong("id");
+            films.put(filmId, new Stats(filmId, rs.getInt("likes_count"), rs.getDate("release").toLocalDate().getYear(),
+                    Set.copyOf(filmsGenres.getOrDefault(filmId, List.of()))));
+        });
+        fresh.update(films);
+        synchronized (this) {
+            state = fresh;
+        }
+        log.info("Индекс популярности построен, фильмов: {}", fresh.films.size());
+    }
+
+    public List<Long> top(Long genreId, Integer year, int count) {
+        long[] keys = state.ratings.getOrDefault(new Rating(genreId, year), SortedLongArrays.EMPTY);
+        int size = Math.min(count, keys.length);
+        List<Long> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(SortedLongArrays.unpackId(keys[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Упорядочивает фильмы по убыванию лайков, при равенстве по id. Пара (лайки, id) упаковывается в один long,
+     * поэтому сортируется примитивный массив без компаратора и упаковки.
+     */
+    public List<Long> rank(RoaringBitmap filmIds) {
+        Map<Long, Stats> films = state.films;
+        long[] keys = new long[filmIds.getCardinality()];
+        IntIterator iterator = filmIds.getIntIterator();
+        for (int i = 0; iterator.hasNext(); i++) {
+            int filmId = iterator.next();
+            Stats stats = films.get((long) filmId);
+            keys[i] = key(filmId, Objects.isNull(stats) ? 0 : stats.likes());
+        }
+        Arrays.sort(keys);
+        List<Long> result = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            result.add(SortedLongArrays.unpackId(key));
+        }
+        return result;
+    }
+
+    public int likes(Long filmId) {
+        Stats stats = state.films.get(filmId);
+        return Objects.isNull(stats) ? 0 : stats.likes();
+    }
+
+    public synchronized void put(Film film) {
+        Stats previous = state.films.get(film.getId());
+        int likes = Objects.nonNull(previous) ? previous.likes()
+                : Objects.requireNonNullElse(film.getLikesCount(), 0);
+        Set<Long> genreIds = new HashSet<>();
+        if (Objects.nonNull(film.getGenres())) {
+            film.getGenres().stream().map(Genre::getId).forEach(genreIds::add);
+        }
+        state.update(Map.of(film.getId(),
+                new Stats(film.getId(), likes, film.getReleaseDate().getYear(), Set.copyOf(genreIds))));
+    }
+
+    public void changeLikes(Long filmId, int delta) {
+        changeLikes(Map.of(filmId, delta));
+    }
+
+    /**
+     * Пакетное изменение лайков: каждый затронутый рейтинг копируется один раз.
+     */
+    public synchronized void changeLikes(Map<Long, Integer> deltas) {
+        Map<Long, Stats> changes = new HashMap<>();
+        deltas.forEach((filmId, delta) -> {
+            Stats previous = state.films.get(filmId);
+            if (Objects.nonNull(previous)) {
+                changes.put(filmId, new Stats(filmId, previous.likes() + delta, previous.year(),
+                        previous.genreIds()));
+            }
+        });
+        state.update(changes);
+    }
+
+    public synchronized void remove(Long filmId) {
+        Map<Long, Stats> changes = new HashMap<>();
+        changes.put(filmId, null);
+        state.update(changes);
+    }
+
+    private static long key(long filmId, int likes) {
+        return SortedLongArrays.pack(Integer.MAX_VALUE - likes, filmId);
+    }
+
+    private record Stats(long filmId, int likes, int year, Set<Long> genreIds) {
+
+        long key() {
+            return PopularityIndex.key(filmId, likes);
+        }
+
+        List<Rating> ratings() {
+            List<Rating> ratings = new ArrayList<>(2 + genreIds.size() * 2);
+            ratings.add(new Rating(null, null));
+            ratings.add(new Rating(null, year));
+            for (Long genreId : genreIds) {
+                ratings.add(new Rating(genreId, null));
+                ratings.add(new Rating(genreId, year));
+            }
+            return ratings;
+        }
+
+    }
+
+    //рейтинг с фильтром по жанру и/или году, без фильтров - общий
+    private record Rating(Long genreId, Integer year) {
+    }
+
+    private static final class State {
+
+        private final Map<Long, Stats> films = new ConcurrentHashMap<>();
+        private final Map<Rating, long[]> ratings = new ConcurrentHashMap<>();
+
+        //null в changes удаляет фильм
+        void update(Map<Long, Stats> changes) {
+            SortedLongArrays.Changes<Rating> edits = new SortedLongArrays.Changes<>();
+            changes.forEach((filmId, next) -> {
+                Stats previous = films.get(filmId);
+                if (Objects.nonNull(previous)) {
+                    previous.ratings().forEach(rating -> edits.remove(rating, previous.key()));
+                }
+                if (Objects.nonNull(next)) {
+                    next.ratings().forEach(rating -> edits.add(rating, next.key()));
+                    films.put(filmId, next);
+                } else {
+                    films.remove(filmId);
+                }
+            });
+            edits.applyTo(ratings);
+        }
+
+    }
+
+}
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.storage.likes;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.RebuildableIndex;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Лайки пользователей в виде сжатых битовых карт id фильмов.
+ * Карты неизменяемы после публикации: запись копирует карту пользователя, поэтому чтение идет без блокировок.
+ * Похожие пользователи ищутся по числу общих лайков параллельно на всех ядрах.
+ */
+@Slf4j
+@Component
+public class RecommendationEngine implements RebuildableIndex {
+
+    private static final Comparator<Similarity> BY_SIMILARITY = Comparator.comparingInt(Similarity::commonLikes)
+            .reversed()
+            .thenComparingLong(Similarity::userId);
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final int similarUsers;
+    private final Map<Long, RoaringBitmap> likes = new ConcurrentHashMap<>();
+
+    public RecommendationEngine(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                @Value("${filmorate.recommendations.similar-users:1}") int similarUsers) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.similarUsers = similarUsers;
+    }
+
+    @PostConstruct
+    @Override
+    public void rebuild() {
+        Map<Long, RoaringBitmap> fresh = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT user_id, film_id FROM likes", rs -> {
+            fresh.computeIfAbsent(rs.getLong("user_id"), id -> new RoaringBitmap()).add(rs.getInt("film_id"));
+        });
+        fresh.values().forEach(RoaringBitmap::runOptimize);
+        likes.clear();
+        likes.putAll(fresh);
+        log.info("Индекс лайков для рекомендаций построен, пользователей: {}", fresh.size());
+    }
+
+    public List<Long> recommend(Long userId) {
+        RoaringBitmap own = likes.get(userId);
+        if (Objects.isNull(own) || own.isEmpty()) {
+            return List.of();
+        }
+        List<Similarity> similar = likes.entrySet().parallelStream()
+                .filter(entry -> !entry.getKey().equals(userId))
+                .map(entry -> new Similarity(entry.getKey(), RoaringBitmap.andCardinality(own, entry.getValue()),
+                        entry.getValue()))
+                .filter(similarity -> similarity.commonLikes() > 0)
+                .sorted(BY_SIMILARITY)
+                .limit(similarUsers)
+                .toList();
+        RoaringBitmap recommended = new RoaringBitmap();
+        similar.forEach(similarity -> recommended.or(similarity.likes()));
+        recommended.andNot(own);
+        return Arrays.stream(recommended.toArray()).mapToObj(Long::valueOf).toList();
+    }
+
+    public RoaringBitmap likedFilms(Long userId) {
+        RoaringBitmap liked = likes.get(userId);
+        return Objects.isNull(liked) ? new RoaringBitmap() : liked;
+    }
+
+    public void like(Long userId, Long filmId) {
+        likes.compute(userId, (id, liked) -> {
+            RoaringBitmap copy = Objects.isNull(liked) ? new RoaringBitmap() : liked.clone();
+            copy.add(filmId.intValue());
+            return copy;
+        });
+    }
+
+    public void unlike(Long userId, Long filmId) {
+        likes.computeIfPresent(userId, (id, liked) -> {
+            RoaringBitmap copy = liked.clone();
+            copy.remove(filmId.intValue());
+            return copy.isEmpty() ? null : copy;
+        });
+    }
+
+    public void removeUser(Long userId) {
+        likes.remove(userId);
+    }
+
+    public void removeFilm(Long filmId) {
+        int film = filmId.intValue();
+        likes.replaceAll((userId, liked) -> {
+            if (!liked.contains(film)) {
+                return liked;
+            }
+            RoaringBitmap copy = liked.clone();
+            copy.remove(film);
+            return copy;
+        });
+    }
+
+    private record Similarity(long userId, int commonLikes, RoaringBitmap likes) {
+    }
+
+}
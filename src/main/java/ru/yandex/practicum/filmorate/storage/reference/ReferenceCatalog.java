@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.storage.reference;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.mapper.GenreMapper;
+import ru.yandex.practicum.filmorate.mapper.MpaMapper;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Неизменяемый снимок справочников ratings и genres, загружаемый при старте.
+ * Чтение идет без блокировок и без обращения к БД; экземпляры Mpa и Genre общие для всех фильмов.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class ReferenceCatalog {
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final MpaMapper mpaMapper;
+    private final GenreMapper genreMapper;
+
+    private volatile Snapshot snapshot = new Snapshot(List.of(), List.of());
+
+    @PostConstruct
+    public void reload() {
+        List<Mpa> ratings = namedParameterJdbcTemplate.query("SELECT * FROM ratings ORDER BY id", mpaMapper);
+        List<Genre> genres = namedParameterJdbcTemplate.query("SELECT * FROM genres ORDER BY id", genreMapper);
+        snapshot = new Snapshot(ratings, genres);
+        log.info("Загружены справочники: рейтингов {}, жанров {}", ratings.size(), genres.size());
+    }
+
+    public Mpa findMpa(Long id) {
+        return Objects.isNull(id) ? null : snapshot.ratingsById().get(id);
+    }
+
+    public Collection<Mpa> findAllMpa() {
+        return snapshot.ratings();
+    }
+
+    public Genre findGenre(Long id) {
+        return Objects.isNull(id) ? null : snapshot.genresById().get(id);
+    }
+
+    public Collection<Genre> findAllGenres() {
+        return snapshot.genres();
+    }
+
+    public boolean containsGenres(Collection<Long> genreIds) {
+        Map<Long, Genre> genresById = snapshot.genresById();
+        return genreIds.stream().allMatch(id -> Objects.nonNull(id) && genresById.containsKey(id));
+    }
+
+    private record Snapshot(List<Mpa> ratings, List<Genre> genres, Map<Long, Mpa> ratingsById,
+                            Map<Long, Genre> genresById) {
+
+        Snapshot(List<Mpa> ratings, List<Genre> genres) {
+            this(List.copyOf(ratings), List.copyOf(genres),
+                    ratings.stream().collect(Collectors.toUnmodifiableMap(Mpa::getId, Function.identity())),
+                    genres.stream().collect(Collectors.toUnmodifiableMap(Genre::getId, Function.identity())));
+        }
+
+    }
+
+}
@@ -7,7 +7,11 @@ import org.springframework.jdbc.core.namedparam.*;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.helper.EntityVersions;
+import ru.yandex.practicum.filmorate.helper.EntityVersions.Entity;
+import ru.yandex.practicum.filmorate.helper.TransactionHooks;
 import ru.yandex.practicum.filmorate.mapper.ReviewMapper;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
@@ -25,6 +29,7 @@ public class ReviewDbStorage {
     private final FilmDbStorage filmDbStorage;
     private final UserDbStorage userDbStorage;
     private final ReviewValidator validate;
+    private final EntityVersions entityVersions;
 
     public Review create(Review review) {
         validate.forCreate(review);
@@ -59,18 +64,20 @@ public class ReviewDbStorage {
             .addValue("is_positive", review.getIsPositive())
             .addValue("id", review.getIsPositive());
         namedParameterJdbcTemplate.update(sql, params);
+        TransactionHooks.afterCommit(() -> entityVersions.bump(Entity.REVIEW, review.getReviewId()));
 
         return getReview(review.getReviewId());
     }
 
+    public void checkExists(Long id) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM reviews WHERE id = :id)";
+        if (!Boolean.TRUE.equals(namedParameterJdbcTemplate.queryForObject(sql, Map.of("id", id), Boolean.class))) {
+            throw new NotFoundException("Отзыв с id = " + id + " не найден.");
+        }
+    }
+
     public Review getReview(Long id) {
-        String sql = """
-            SELECT r.id, r.content, r.user_id, r.film_id, r.is_positive, COALESCE(SUM(rl.rating), 0) AS rating_sum
-            FROM reviews r
-            LEFT JOIN review_likes rl ON rl.review_id = r.id
-            WHERE r.id = :id
-            GROUP BY r.id, r.content, r.user_id, r.film_id, r.is_positive;
-            """;
+        String sql = "SELECT id, content, user_id, film_id, is_positive, useful FROM reviews WHERE id = :id;";
         try {
             return namedParameterJdbcTemplate.queryForObject(sql, Map.of("id", id), mapper);
         } catch (EmptyResultDataAccessException e) {
@@ -79,16 +86,22 @@ public class ReviewDbStorage {
     }
 
     public List<Review> getReviews(Long filmId, Integer count) {
-        if (Objects.nonNull(filmId)) {
-            filmDbStorage.getFilm(filmId);
+        if (Objects.nonNull(filmId) && !filmDbStorage.filmExists(filmId)) {
+            throw new NotFoundException("Фильм " + filmId + " не найден");
         }
-        String sql = """
-            SELECT r.id, r.content, r.user_id, r.film_id, r.is_positive, COALESCE(SUM(rl.rating), 0) AS rating_sum
-            FROM reviews r
-            LEFT JOIN review_likes rl ON rl.review_id = r.id
-            WHERE r.film_id = COALESCE(:filmId, r.film_id)
-            GROUP BY r.id, r.content, r.user_id, r.film_id, r.is_positive
-            ORDER BY COALESCE(SUM(rl.rating), 0) DESC
+        //отдельные запросы, чтобы каждый шел по своему индексу (film_id, useful DESC) или (useful DESC)
+        String sql = Objects.nonNull(filmId)
+            ? """
+            SELECT id, content, user_id, film_id, is_positive, useful
+            FROM reviews
+            WHERE film_id = :filmId
+            ORDER BY useful DESC, id
+            LIMIT :count;
+            """
+            : """
+            SELECT id, content, user_id, film_id, is_positive, useful
+            FROM reviews
+            ORDER BY useful DESC, id
             LIMIT :count;
             """;
 
@@ -103,28 +116,42 @@ public class ReviewDbStorage {
         String sql = "DELETE FROM reviews WHERE id = :id;";
 
         namedParameterJdbcTemplate.update(sql, Map.of("id", id));
+        TransactionHooks.afterCommit(() -> entityVersions.bump(Entity.REVIEW, id));
     }
 
     //Like и dislike отличаются лишь знаком "+" или "-". Одного метода будет достаточно
+    //useful меняется на разницу с прежней оценкой пользователя: при смене лайка на дизлайк это -2.
+    //Обновление отзыва идет первым и блокирует его строку, поэтому параллельные оценки не теряются.
+    @Transactional
     public void setRating(Long userId, Long reviewId, Integer rating) {
-        userDbStorage.getUser(userId);
+        checkUser(userId);
         getReview(reviewId);
+        SqlParameterSource params = new MapSqlParameterSource()
+            .addValue("userId", userId)
+            .addValue("reviewId", reviewId)
+            .addValue("rating", rating);
+        String updateUseful = """
+            UPDATE reviews
+            SET useful = useful + :rating - COALESCE((SELECT rating
+                                                      FROM review_likes
+                                                      WHERE user_id = :userId
+                                                      AND review_id = :reviewId), 0)
+            WHERE id = :reviewId;
+            """;
+        namedParameterJdbcTemplate.update(updateUseful, params);
         String sql = """
             MERGE INTO review_likes (user_id, review_id, rating)
             KEY (user_id, review_id)
             VALUES (:userId, :reviewId, :rating);
             """;
-        SqlParameterSource params = new MapSqlParameterSource()
-            .addValue("userId", userId)
-            .addValue("reviewId", reviewId)
-            .addValue("rating", rating);
-
         namedParameterJdbcTemplate.update(sql, params);
+        TransactionHooks.afterCommit(() -> entityVersions.bump(Entity.REVIEW, reviewId));
     }
 
     //тут тоже реитинг передаю, чтобы при удалении дизлайка не удалялся лайк и наоборот
+    @Transactional
     public void deleteRating(Long userId, Long reviewId, Integer rating) {
-        userDbStorage.getUser(userId);
+        checkUser(userId);
         getReview(reviewId);
         String sql = """
             DELETE FROM review_likes
@@ -137,7 +164,17 @@ public class ReviewDbStorage {
             .addValue("reviewId", reviewId)
             .addValue("rating", rating);
 
-        namedParameterJdbcTemplate.update(sql, params);
+        if (namedParameterJdbcTemplate.update(sql, params) > 0) {
+            String updateUseful = "UPDATE reviews SET useful = useful - :rating WHERE id = :reviewId;";
+            namedParameterJdbcTemplate.update(updateUseful, params);
+            TransactionHooks.afterCommit(() -> entityVersions.bump(Entity.REVIEW, reviewId));
+        }
+    }
+
+    private void checkUser(Long userId) {
+        if (!userDbStorage.userExists(userId)) {
+            throw new NotFoundException("Пользователь " + userId + " не найден");
+        }
     }
 
-}
\ No newline at end of file
+}
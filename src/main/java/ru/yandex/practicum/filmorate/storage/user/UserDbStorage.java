@@ -8,15 +8,32 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
-import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.helper.Constants;
+import ru.yandex.practicum.filmorate.helper.EntityVersions;
+import ru.yandex.practicum.filmorate.helper.EntityVersions.Entity;
+import ru.yandex.practicum.filmorate.helper.TransactionHooks;
 import ru.yandex.practicum.filmorate.mapper.UserMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.director.DirectorFilmIndex;
+import ru.yandex.practicum.filmorate.storage.event.FriendFeedInbox;
+import ru.yandex.practicum.filmorate.storage.film.FilmAssembler;
+import ru.yandex.practicum.filmorate.storage.friend.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.likes.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.likes.RecommendationEngine;
+import ru.yandex.practicum.filmorate.validation.PageValidator;
 import ru.yandex.practicum.filmorate.validation.UserValidator;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -24,9 +41,18 @@ import java.util.Objects;
 public class UserDbStorage implements UserStorage {
 
     private final UserValidator validate;
-    private final FilmMapper filmMapper;
+    private final PageValidator validatePage;
+    private final FilmAssembler filmAssembler;
     private final UserMapper userMapper;
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final PopularityIndex popularityIndex;
+    private final RecommendationEngine recommendationEngine;
+    private final FriendGraph friendGraph;
+    private final FriendFeedInbox friendFeedInbox;
+    private final UserExistenceIndex userExistenceIndex;
+    private final EntityVersions entityVersions;
+    private final DirectorFilmIndex directorFilmIndex;
+    private static final String PAGE_SQL = "SELECT * FROM users WHERE id > :after ORDER BY id LIMIT :limit";
     MapSqlParameterSource params;
 
     @Override
@@ -35,6 +61,27 @@ public class UserDbStorage implements UserStorage {
         return namedParameterJdbcTemplate.query("SELECT * FROM users ORDER BY id", userMapper);
     }
 
+    @Override
+    public List<User> findPage(Long after, int limit) {
+        validatePage.forPage(limit);
+        return namedParameterJdbcTemplate.query(PAGE_SQL, pageParams(after, limit), userMapper);
+    }
+
+    @Override
+    public void streamAll(Long after, Consumer<User> consumer) {
+        log.info("Запрошена выгрузка пользователей начиная после id {}", after);
+        AtomicLong cursor = new AtomicLong(Objects.isNull(after) ? 0L : after);
+        AtomicInteger rows = new AtomicInteger();
+        do {
+            rows.set(0);
+            namedParameterJdbcTemplate.query(PAGE_SQL, pageParams(cursor.get(), Constants.STREAM_CHUNK_SIZE), rs -> {
+                User user = userMapper.mapRow(rs, rows.incrementAndGet());
+                consumer.accept(user);
+                cursor.set(user.getId());
+            });
+        } while (rows.get() == Constants.STREAM_CHUNK_SIZE);
+    }
+
     @Override
     public User create(User newUser) {
         params = new MapSqlParameterSource();
@@ -48,7 +95,8 @@ public class UserDbStorage implements UserStorage {
 
         namedParameterJdbcTemplate.update(sql, params, keyHolder, new String[]{"id"});
         Long id = Objects.requireNonNull(keyHolder.getKey()).longValue();
-        log.info("Добавлен пользователь \"" + newUser.getName() + "\" с id = " + id);
+        log.info("Добавлен пользователь \"{}\" с id = {}", newUser.getName(), id);
+        TransactionHooks.afterCommit(() -> userExistenceIndex.add(id));
         return newUser.toBuilder().id(id).build();
     }
 
@@ -65,7 +113,7 @@ public class UserDbStorage implements UserStorage {
         String sql =
                 "UPDATE users SET name = COALESCE(:name, name), login = COALESCE(:login, login), email = :email, birthday = COALESCE(:birthday, birthday) WHERE id = :id";
         namedParameterJdbcTemplate.update(sql, params);
-        log.info("Обновлен пользователь с id = " + id);
+        log.info("Обновлен пользователь с id = {}", id);
         params = new MapSqlParameterSource();
         params.addValue("id", id);
         return namedParameterJdbcTemplate.queryForObject("SELECT * FROM users WHERE id = :id", params, userMapper);
@@ -83,6 +131,7 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    @Transactional
     public boolean deleteById(Long id) {
         params = new MapSqlParameterSource();
         log.info("Начало удаление пользователя - {}", id);
@@ -91,7 +140,36 @@ public class UserDbStorage implements UserStorage {
             if (userExist) {
                 log.debug("Успешное удаление пользователя");
                 params.addValue("id", id);
-                return namedParameterJdbcTemplate.update("DELETE FROM users WHERE id = :id", params) > 0;
+                List<Long> likedFilms = namedParameterJdbcTemplate.queryForList(
+                        "SELECT film_id FROM likes WHERE user_id = :id", params, Long.class);
+                namedParameterJdbcTemplate.update("""
+                        UPDATE films SET likes_count = likes_count - 1
+                        WHERE id IN (SELECT film_id FROM likes WHERE user_id = :id)
+                        """, params);
+                namedParameterJdbcTemplate.update("""
+                        UPDATE reviews r
+                        SET useful = useful - (SELECT rl.rating
+                                               FROM review_likes rl
+                                               WHERE rl.review_id = r.id
+                                               AND rl.user_id = :id)
+                        WHERE id IN (SELECT review_id FROM review_likes WHERE user_id = :id)
+                        """, params);
+                boolean deleted = namedParameterJdbcTemplate.update("DELETE FROM users WHERE id = :id", params) > 0;
+                TransactionHooks.afterCommit(() -> {
+                    userExistenceIndex.remove(id);
+                    Map<Long, Integer> deltas = new HashMap<>();
+                    likedFilms.forEach(filmId -> {
+                        deltas.put(filmId, -1);
+                        entityVersions.bump(Entity.FILM, filmId);
+                    });
+                    popularityIndex.changeLikes(deltas);
+                    directorFilmIndex.changeLikes(deltas);
+                    entityVersions.bumpAll(Entity.REVIEW);
+                    recommendationEngine.removeUser(id);
+                    friendFeedInbox.evictWithFollowers(id);
+                    friendGraph.removeUser(id);
+                });
+                return deleted;
             } else {
                 throw new NotFoundException("Не содержит данного пользователя " + id);
             }
@@ -101,31 +179,17 @@ public class UserDbStorage implements UserStorage {
     }
 
     public boolean userExists(Long userId) {
-        params = new MapSqlParameterSource();
-        String sql = "SELECT EXISTS (SELECT 1 FROM users WHERE id = :userId)";
-        params.addValue("userId", userId);
-        return Boolean.TRUE.equals(namedParameterJdbcTemplate.queryForObject(sql, params, Boolean.class));
+        return userExistenceIndex.contains(userId);
     }
 
-    public Collection<Film> getRecommendations(Long id) {
-        params = new MapSqlParameterSource();
-        String sql = "WITH similar_users AS ( " +
-                "    SELECT ul2.user_id, " +
-                "        COUNT(*) AS common_likes " +
-                "    FROM likes ul1 " +
-                "    JOIN likes ul2 ON ul1.film_id = ul2.film_id " +
-                "    WHERE ul1.user_id = :id " +
-                "        AND ul2.user_id != :id " +
-                "    GROUP BY ul2.user_id " +
-                "    ORDER BY common_likes DESC " +
-                "    LIMIT 1 ) " +
-                "SELECT f.id, f.name, f.description, f.release, f.duration, f.rating_id " +
-                "FROM films f " +
-                "JOIN likes l ON f.id = l.film_id " +
-                "JOIN similar_users su ON l.user_id = su.user_id " +
-                "WHERE f.id NOT IN (SELECT film_id FROM likes WHERE user_id = :id);";
+    private MapSqlParameterSource pageParams(Long after, int limit) {
+        return new MapSqlParameterSource()
+                .addValue("after", Objects.isNull(after) ? 0L : after)
+                .addValue("limit", limit);
+    }
 
-        params.addValue("id", id);
-        return namedParameterJdbcTemplate.query(sql, params, filmMapper);
+    public Collection<Film> getRecommendations(Long id) {
+        log.info("Поиск рекомендаций для пользователя {}", id);
+        return filmAssembler.findByIds(recommendationEngine.recommend(id));
     }
 }
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.ExistenceIndex;
+
+@Component
+public class UserExistenceIndex extends ExistenceIndex {
+
+    public UserExistenceIndex(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        super(namedParameterJdbcTemplate, "users");
+    }
+
+}
@@ -2,11 +2,17 @@ package ru.yandex.practicum.filmorate.storage.user;
 
 import ru.yandex.practicum.filmorate.model.User;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserStorage {
 
     Collection<User> findAll();
 
+    List<User> findPage(Long after, int limit);
+
+    void streamAll(Long after, Consumer<User> consumer);
+
     User create(User newUser);
 
     User update(User newUser);
@@ -1,22 +1,22 @@
 package ru.yandex.practicum.filmorate.validation;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.errors.ErrorCode;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.helper.Constants;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmExistenceIndex;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceCatalog;
 import java.util.Objects;
 
 @RequiredArgsConstructor
 @Component
 public class FilmValidator {
 
-    private final MpaDbStorage mpaDbStorage;
-    private final JdbcTemplate jdbcTemplate;
+    private final ReferenceCatalog referenceCatalog;
+    private final FilmExistenceIndex filmExistenceIndex;
 
     public void forCreate(Film film) {
         if (Objects.isNull(film.getName()) || film.getName().isBlank()) {
@@ -34,7 +34,7 @@ public class FilmValidator {
         if (Objects.nonNull(film.getMpa().getName()) && (film.getMpa().getName().isBlank() || Objects.isNull(film.getMpa().getId()))) {
             throw new ValidationException("Указан некорректный рейтинг.");
         }
-        if (Objects.isNull(mpaDbStorage.findMpa(film.getMpa().getId()))) {
+        if (Objects.isNull(referenceCatalog.findMpa(film.getMpa().getId()))) {
             throw new ValidationException("Рейтинга МПА с id = " + film.getMpa().getId() + " нет");
         }
     }
@@ -43,9 +43,7 @@ public class FilmValidator {
         if (Objects.isNull(film.getId())) {
             throw new ValidationException(ErrorCode.ID_IS_NULL.getMessage());
         }
-        String sql = "SELECT COUNT(*) FROM films WHERE id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, film.getId());
-        if (Objects.nonNull(count) && count == 0) {
+        if (!filmExistenceIndex.contains(film.getId())) {
             throw new NotFoundException("Фильм с id = " + film.getId() + " не найден");
         }
         if (Objects.nonNull(film.getName()) && film.getName().isBlank()) {
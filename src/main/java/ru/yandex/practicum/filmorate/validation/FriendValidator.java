@@ -1,11 +1,11 @@
 package ru.yandex.practicum.filmorate.validation;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
-import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.friend.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.UserExistenceIndex;
 
 import java.util.Objects;
 
@@ -13,8 +13,8 @@ import java.util.Objects;
 @Component
 public class FriendValidator {
 
-    private final UserDbStorage userDbStorage;
-    private final JdbcTemplate jdbcTemplate;
+    private final UserExistenceIndex userExistenceIndex;
+    private final FriendGraph friendGraph;
 
     public void forAdd(Long userId, Long friendId) {
         if (userId.equals(friendId)) {
@@ -51,13 +51,11 @@ public class FriendValidator {
     }
 
     private boolean isFriends(Long userId, Long friendId) {
-        String sql = "SELECT COUNT(*) FROM friends WHERE user_id = ? AND friend_id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, userId, friendId);
-        return Objects.nonNull(count) && count > 0;
+        return friendGraph.areFriends(userId, friendId);
     }
 
     private void checkExists(Long id) {
-        if (Objects.isNull(userDbStorage.getUser(id))) {
+        if (!userExistenceIndex.contains(id)) {
             throw new NotFoundException("Пользователь " + id + " не найден.");
         }
     }
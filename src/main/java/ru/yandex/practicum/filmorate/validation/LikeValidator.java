@@ -4,8 +4,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
-import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
-import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmExistenceIndex;
+import ru.yandex.practicum.filmorate.storage.user.UserExistenceIndex;
 
 import java.util.Objects;
 
@@ -13,8 +13,8 @@ import java.util.Objects;
 @Component
 public class LikeValidator {
 
-    private final FilmDbStorage filmDbStorage;
-    private final UserDbStorage userDbStorage;
+    private final FilmExistenceIndex filmExistenceIndex;
+    private final UserExistenceIndex userExistenceIndex;
 
     public void forLike(Long filmId, Long userId) {
         validateFilmAndUserForLike(filmId, userId);
@@ -37,10 +37,10 @@ public class LikeValidator {
         if (Objects.isNull(userId)) {
             throw new ValidationException("Не указан id пользователя.");
         }
-        if (Objects.isNull(filmDbStorage.getFilm(filmId))) {
+        if (!filmExistenceIndex.contains(filmId)) {
             throw new NotFoundException("Фильм не найден.");
         }
-        if (Objects.isNull(userDbStorage.getUser(userId))) {
+        if (!userExistenceIndex.contains(userId)) {
             throw new NotFoundException("Пользователь не найден.");
         }
     }
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.helper.Constants;
+
+@Component
+public class PageValidator {
+
+    public void forPage(int limit) {
+        if (limit < 1 || limit > Constants.MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + Constants.MAX_PAGE_SIZE + ".");
+        }
+    }
+
+    public void forOffset(int offset) {
+        if (offset < 0) {
+            throw new ValidationException("Смещение не может быть отрицательным.");
+        }
+    }
+
+}
@@ -3,10 +3,11 @@ package ru.yandex.practicum.filmorate.validation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Review;
-import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
-import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmExistenceIndex;
+import ru.yandex.practicum.filmorate.storage.user.UserExistenceIndex;
 import java.util.Objects;
 
 @Slf4j
@@ -14,8 +15,8 @@ import java.util.Objects;
 @Component
 public class ReviewValidator {
 
-    private final UserDbStorage userDbStorage;
-    private final FilmDbStorage filmDbStorage;
+    private final UserExistenceIndex userExistenceIndex;
+    private final FilmExistenceIndex filmExistenceIndex;
 
     public void forCreate(Review review) {
         if (Objects.isNull(review.getUserId())) {
@@ -24,8 +25,12 @@ public class ReviewValidator {
         if (Objects.isNull(review.getFilmId())) {
             throw new ValidationException("некорректный id фильма.");
         }
-        userDbStorage.getUser(review.getUserId());
-        filmDbStorage.getFilm(review.getFilmId());
+        if (!userExistenceIndex.contains(review.getUserId())) {
+            throw new NotFoundException("Пользователь " + review.getUserId() + " не найден");
+        }
+        if (!filmExistenceIndex.contains(review.getFilmId())) {
+            throw new NotFoundException("Фильм " + review.getFilmId() + " не найден");
+        }
         if (Objects.isNull(review.getIsPositive())) {
             throw new ValidationException("Не указано положительный или отрицательный отзыв.");
         }
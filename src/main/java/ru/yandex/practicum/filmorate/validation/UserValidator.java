@@ -2,12 +2,12 @@ package ru.yandex.practicum.filmorate.validation;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.errors.ErrorCode;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserExistenceIndex;
 import java.time.LocalDate;
 import java.util.Objects;
 
@@ -16,7 +16,7 @@ import java.util.Objects;
 @Component
 public class UserValidator {
 
-    private final JdbcTemplate jdbcTemplate;
+    private final UserExistenceIndex userExistenceIndex;
 
     public void forCreate(User newUser) {
         if (Objects.isNull(newUser.getEmail()) || newUser.getEmail().isBlank()) {
@@ -29,7 +29,7 @@ public class UserValidator {
             throw new ValidationException(ErrorCode.INCORRECT_BIRTHDAY.getMessage());
         }
         if (Objects.isNull(newUser.getName()) || newUser.getName().isBlank()) {
-            log.info("Имя заменено на логин для " + newUser);
+            log.info("Имя заменено на логин для {}", newUser);
             newUser.setName(newUser.getLogin());
         }
     }
@@ -39,9 +39,7 @@ public class UserValidator {
             throw new ValidationException(ErrorCode.ID_IS_NULL.getMessage());
         }
         Long id = newUser.getId();
-        String sql = "SELECT COUNT(*) FROM users WHERE id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
-        if (Objects.nonNull(count) && count == 0) {
+        if (!userExistenceIndex.contains(id)) {
             throw new NotFoundException("Пользователь с id = " + id + " не найден");
         }
         if (Objects.nonNull(newUser.getLogin()) && (newUser.getLogin().isBlank() || newUser.getLogin().contains(" "))) {
@@ -51,7 +49,7 @@ public class UserValidator {
             throw new ValidationException(ErrorCode.INCORRECT_BIRTHDAY.getMessage());
         }
         if (Objects.nonNull(newUser.getName()) && newUser.getName().isBlank()) {
-            log.info("Имя заменено на логин для id = " + id);
+            log.info("Имя заменено на логин для id = {}", id);
             newUser.setName(newUser.getLogin());
         }
     }
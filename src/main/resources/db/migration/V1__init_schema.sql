@@ -1,20 +1,3 @@
-DROP TABLE IF EXISTS events,
-    event_types,
-    operations,
-    entity_types,
-    review_likes,
-    reviews,
-    friends,
-    likes,
-    genres_films,
-    films,
-    directors,
-    directors_films,
-    genres,
-    ratings,
-    users,
-CASCADE;
-
 CREATE TABLE IF NOT EXISTS users (
     id INTEGER GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
     name VARCHAR(200),
@@ -105,4 +88,4 @@ CREATE TABLE IF NOT EXISTS directors (
 CREATE TABLE IF NOT EXISTS directors_films (
                                                director_id INTEGER NOT NULL REFERENCES directors(id) ON DELETE CASCADE,
                                                film_id INTEGER NOT NULL REFERENCES films(id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
@@ -0,0 +1,32 @@
+-- лайки: в исходной схеме у таблицы не было ключа, дубликаты удаляются до его добавления
+CREATE TABLE likes_distinct AS SELECT DISTINCT film_id, user_id FROM likes;
+DELETE FROM likes;
+INSERT INTO likes (film_id, user_id) SELECT film_id, user_id FROM likes_distinct;
+DROP TABLE likes_distinct;
+ALTER TABLE likes ADD CONSTRAINT likes_pk PRIMARY KEY (film_id, user_id);
+
+ALTER TABLE films ADD COLUMN likes_count INTEGER DEFAULT 0 NOT NULL;
+UPDATE films f SET likes_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id);
+CREATE INDEX films_likes_count_idx ON films (likes_count DESC, id);
+
+-- оценки отзывов: из повторных оценок пользователя остается последняя
+DELETE FROM review_likes rl
+WHERE EXISTS (SELECT 1
+              FROM review_likes newer
+              WHERE newer.user_id = rl.user_id
+              AND newer.review_id = rl.review_id
+              AND newer.id > rl.id);
+ALTER TABLE review_likes ADD CONSTRAINT review_likes_user_review_uq UNIQUE (user_id, review_id);
+
+ALTER TABLE reviews ADD COLUMN useful INTEGER DEFAULT 0 NOT NULL;
+UPDATE reviews r SET useful = COALESCE((SELECT SUM(rl.rating) FROM review_likes rl WHERE rl.review_id = r.id), 0);
+CREATE INDEX reviews_film_useful_idx ON reviews (film_id, useful DESC, id);
+CREATE INDEX reviews_useful_idx ON reviews (useful DESC, id);
+
+CREATE INDEX events_user_id_idx ON events (user_id, id);
+
+CREATE TABLE friend_feed (
+    user_id INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    event_id INTEGER NOT NULL REFERENCES events(id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, event_id)
+);
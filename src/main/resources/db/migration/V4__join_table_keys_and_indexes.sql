@@ -0,0 +1,28 @@
+-- в исходной схеме у таблиц связей не было ключей, дубликаты удаляются до их добавления
+CREATE TABLE friends_distinct AS SELECT DISTINCT user_id, friend_id FROM friends;
+DELETE FROM friends;
+INSERT INTO friends (user_id, friend_id) SELECT user_id, friend_id FROM friends_distinct;
+DROP TABLE friends_distinct;
+ALTER TABLE friends ADD CONSTRAINT friends_pk PRIMARY KEY (user_id, friend_id);
+CREATE INDEX friends_friend_id_idx ON friends (friend_id, user_id);
+
+CREATE INDEX likes_user_id_idx ON likes (user_id, film_id);
+
+CREATE TABLE genres_films_distinct AS SELECT DISTINCT genre_id, film_id FROM genres_films;
+DELETE FROM genres_films;
+INSERT INTO genres_films (genre_id, film_id) SELECT genre_id, film_id FROM genres_films_distinct;
+DROP TABLE genres_films_distinct;
+ALTER TABLE genres_films ADD CONSTRAINT genres_films_pk PRIMARY KEY (film_id, genre_id);
+CREATE INDEX genres_films_genre_id_idx ON genres_films (genre_id, film_id);
+
+CREATE TABLE directors_films_distinct AS SELECT DISTINCT director_id, film_id FROM directors_films;
+DELETE FROM directors_films;
+INSERT INTO directors_films (director_id, film_id) SELECT director_id, film_id FROM directors_films_distinct;
+DROP TABLE directors_films_distinct;
+ALTER TABLE directors_films ADD CONSTRAINT directors_films_pk PRIMARY KEY (film_id, director_id);
+CREATE INDEX directors_films_director_id_idx ON directors_films (director_id, film_id);
+
+CREATE INDEX reviews_user_id_idx ON reviews (user_id);
+CREATE INDEX review_likes_review_id_idx ON review_likes (review_id);
+
+CREATE INDEX friend_feed_event_id_idx ON friend_feed (event_id);
@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.storage.bulk;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.friend.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.likes.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:bulk-import;DB_CLOSE_DELAY=-1")
+class BulkImportStorageTest {
+
+    @Autowired
+    private BulkImportStorage bulkImportStorage;
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+    @Autowired
+    private UserDbStorage userDbStorage;
+    @Autowired
+    private PopularityIndex popularityIndex;
+    @Autowired
+    private FriendGraph friendGraph;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Test
+    void invalidUsersAreReportedByLineAndTheRestImported() {
+        String prefix = "import" + System.nanoTime();
+        ImportReport report = new ImportReport();
+
+        bulkImportStorage.importUsers(List.of(
+                new ImportLine<>(1, user(prefix + "a", "Первый")),
+                new ImportLine<>(2, user(prefix + "b", "И".repeat(201))),
+                new ImportLine<>(3, user(prefix + "c", "Третий").toBuilder().email(" ").build()),
+                new ImportLine<>(4, user(prefix + "d", "Четвертый"))), report);
+
+        assertThat(report.getAccepted()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportReport.LineError::line).containsExactly(2L, 3L);
+        assertThat(namedParameterJdbcTemplate.queryForList("SELECT login FROM users WHERE login LIKE :prefix "
+                + "ORDER BY login", Map.of("prefix", prefix + "%"), String.class))
+                .containsExactly(prefix + "a", prefix + "d");
+    }
+
+    @Test
+    void likesOfUnknownFilmsOrUsersAreRejectedAndCountersMatchSql() {
+        Long filmId = filmDbStorage.create(film()).getId();
+        Long userId = userDbStorage.create(user("likes" + System.nanoTime(), "Зритель")).getId();
+        Long otherId = userDbStorage.create(user("likes" + System.nanoTime(), "Второй зритель")).getId();
+        ImportReport report = new ImportReport();
+
+        bulkImportStorage.importLikes(List.of(
+                new ImportLine<>(1, new Like(filmId, userId)),
+                new ImportLine<>(2, new Like((long) Integer.MAX_VALUE, userId)),
+                new ImportLine<>(3, new Like(filmId, (long) Integer.MAX_VALUE)),
+                new ImportLine<>(4, new Like(filmId, otherId)),
+                new ImportLine<>(5, new Like(filmId, userId))), report);
+
+        assertThat(report.getAccepted()).isEqualTo(3);
+        assertThat(report.getErrors()).extracting(ImportReport.LineError::line).containsExactly(2L, 3L);
+        Integer likes = namedParameterJdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes WHERE film_id = :id",
+                Map.of("id", filmId), Integer.class);
+        assertThat(likes).isEqualTo(2);
+        assertThat(namedParameterJdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE id = :id",
+                Map.of("id", filmId), Integer.class)).isEqualTo(likes);
+        assertThat(popularityIndex.likes(filmId)).isEqualTo(likes);
+    }
+
+    @Test
+    void rowRejectedByDatabaseDoesNotFailTheChunk() {
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            users.add(userDbStorage.create(user("friends" + System.nanoTime(), "Друг " + i)).getId());
+        }
+        //дружба уже в БД, но не в графе: пакетная вставка упрется в первичный ключ
+        namedParameterJdbcTemplate.update("INSERT INTO friends (user_id, friend_id) VALUES (:userId, :friendId)",
+                Map.of("userId", users.get(2), "friendId", users.get(3)));
+        ImportReport report = new ImportReport();
+
+        bulkImportStorage.importFriends(List.of(
+                new ImportLine<>(1, new Friendship(users.get(0), users.get(1))),
+                new ImportLine<>(2, new Friendship(users.get(2), users.get(3))),
+                new ImportLine<>(3, new Friendship(users.get(1), users.get(0))),
+                new ImportLine<>(4, new Friendship(users.get(0), users.get(0)))), report);
+
+        assertThat(report.getAccepted()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportReport.LineError::line).containsExactly(4L, 2L);
+        assertThat(report.getErrors().get(1).message()).startsWith("Ошибка записи");
+        assertThat(friendGraph.areFriends(users.get(0), users.get(1))).isTrue();
+        assertThat(friendGraph.areFriends(users.get(1), users.get(0))).isTrue();
+        assertThat(namedParameterJdbcTemplate.queryForObject("SELECT COUNT(*) FROM friends WHERE user_id IN (:ids)",
+                Map.of("ids", users), Integer.class)).isEqualTo(3);
+    }
+
+    private static User user(String login, String name) {
+        return User.builder()
+                .email(login + "@example.com")
+                .login(login)
+                .name(name)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    private static Film film() {
+        return Film.builder()
+                .name("Импортируемый фильм")
+                .description("Описание")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(Mpa.builder().id(1L).build())
+                .genres(new ArrayList<>())
+                .directors(new ArrayList<>())
+                .build();
+    }
+
+}
@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.storage.director;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.likes.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:director-films;DB_CLOSE_DELAY=-1")
+class DirectorFilmIndexTest {
+
+    private static final int FILMS = 20;
+
+    @Autowired
+    private DirectorDbStorage directorDbStorage;
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+    @Autowired
+    private LikeDbStorage likeDbStorage;
+    @Autowired
+    private UserDbStorage userDbStorage;
+    @Autowired
+    private DirectorFilmIndex directorFilmIndex;
+
+    private Long directorId;
+    //id фильмов по дате выпуска, даты идут в обратном порядке к созданию
+    private final List<Long> byRelease = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        byRelease.clear();
+        directorId = directorDbStorage.create(Director.builder().name("Режиссер " + System.nanoTime()).build())
+                .getId();
+        for (int i = 0; i < FILMS; i++) {
+            Film film = filmDbStorage.create(Film.builder()
+                    .name("Фильм " + i)
+                    .description("Описание")
+                    .releaseDate(LocalDate.of(2020, 1, 1).minusYears(i))
+                    .duration(100)
+                    .mpa(Mpa.builder().id(1L).build())
+                    .genres(new ArrayList<>())
+                    .directors(new ArrayList<>(List.of(Director.builder().id(directorId).build())))
+                    .build());
+            byRelease.add(0, film.getId());
+        }
+    }
+
+    @Test
+    void likedFilmMovesToTheTopOfTheLikesOrder() {
+        Long userId = userDbStorage.create(User.builder()
+                .email("director-index@example.com")
+                .login("directorIndex")
+                .name("Зритель")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build()).getId();
+        Long liked = byRelease.get(FILMS / 2);
+
+        likeDbStorage.like(liked, userId);
+
+        assertThat(directorFilmIndex.page(directorId, true, 0, FILMS)).first().isEqualTo(liked);
+        assertThat(directorFilmIndex.page(directorId, false, 0, FILMS)).isEqualTo(byRelease);
+    }
+
+    @Test
+    void pagesStayCompleteAndOrderedWhileLikesChange() throws InterruptedException {
+        Map<Long, Integer> likes = new HashMap<>();
+        byRelease.forEach(filmId -> likes.put(filmId, 0));
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            SplittableRandom random = new SplittableRandom(7);
+            for (int i = 0; i < 20_000; i++) {
+                Long filmId = byRelease.get(random.nextInt(FILMS));
+                int delta = likes.get(filmId) > 0 && random.nextBoolean() ? -1 : 1;
+                likes.merge(filmId, delta, Integer::sum);
+                directorFilmIndex.changeLikes(filmId, delta);
+            }
+            writing.set(false);
+        });
+        writer.start();
+        while (writing.get()) {
+            List<Long> page = directorFilmIndex.page(directorId, true, 0, FILMS);
+            assertThat(page).hasSize(FILMS);
+            assertThat(new HashSet<>(page)).containsExactlyInAnyOrderElementsOf(byRelease);
+            assertThat(directorFilmIndex.page(directorId, false, 0, FILMS)).isEqualTo(byRelease);
+        }
+        writer.join();
+
+        List<Long> expected = new ArrayList<>(byRelease);
+        expected.sort(Comparator.comparing((Long filmId) -> likes.get(filmId)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        assertThat(directorFilmIndex.page(directorId, true, 0, FILMS)).isEqualTo(expected);
+        List<Long> paged = new ArrayList<>(directorFilmIndex.page(directorId, true, 0, FILMS / 2));
+        paged.addAll(directorFilmIndex.page(directorId, true, FILMS / 2, FILMS));
+        assertThat(paged).isEqualTo(expected);
+    }
+
+}
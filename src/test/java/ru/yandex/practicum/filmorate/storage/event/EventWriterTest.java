@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.storage.event;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//фоновый поток не просыпается сам: интервал больше теста, пакет больше очереди
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:event-writer;DB_CLOSE_DELAY=-1",
+        "filmorate.events.flush-interval=1h",
+        "filmorate.events.queue-capacity=" + EventWriterTest.QUEUE_CAPACITY,
+        "filmorate.events.batch-size=100"
+})
+class EventWriterTest {
+
+    static final int QUEUE_CAPACITY = 4;
+
+    @Autowired
+    private EventDbStorage eventDbStorage;
+    @Autowired
+    private UserDbStorage userDbStorage;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        eventDbStorage.flush();
+        String login = "events" + System.nanoTime();
+        userId = userDbStorage.create(User.builder()
+                .email(login + "@example.com")
+                .login(login)
+                .name("Автор событий")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build()).getId();
+    }
+
+    @Test
+    void readFlushesQueuedEvents() {
+        eventDbStorage.add(userId, 1L, "films", "ADD", "LIKE");
+        eventDbStorage.add(userId, 2L, "films", "REMOVE", "LIKE");
+        assertThat(storedEntityIds()).isEmpty();
+
+        List<Event> events = eventDbStorage.getUserEvents(userId, null, null);
+
+        assertThat(events).extracting(Event::getEntityId).containsExactly(1L, 2L);
+        assertThat(events).extracting(Event::getOperation).containsExactly("ADD", "REMOVE");
+        assertThat(events).extracting(Event::getEventId).isEqualTo(storedEventIds());
+    }
+
+    @Test
+    void fullQueueIsWrittenBySubmitterInOrder() {
+        long count = QUEUE_CAPACITY * 2L + 1;
+        LongStream.rangeClosed(1, count).forEach(entityId -> eventDbStorage.add(userId, entityId, "films", "ADD",
+                "LIKE"));
+        //каждый раз при полной очереди отправитель сам сбрасывает ее в БД
+        assertThat(storedEntityIds()).hasSize(QUEUE_CAPACITY * 2);
+
+        eventDbStorage.flush();
+
+        assertThat(storedEntityIds()).isEqualTo(LongStream.rangeClosed(1, count).boxed().toList());
+    }
+
+    @Test
+    void failedEventDoesNotDropTheRestOfTheBatch() {
+        eventDbStorage.add(userId, 1L, "films", "ADD", "LIKE");
+        //автора нет в users, пакет откатывается и пишется по одному событию
+        eventDbStorage.add((long) Integer.MAX_VALUE, 2L, "films", "ADD", "LIKE");
+        eventDbStorage.add(userId, 3L, "films", "ADD", "LIKE");
+
+        eventDbStorage.flush();
+
+        assertThat(storedEntityIds()).containsExactly(1L, 3L);
+    }
+
+    private List<Long> storedEntityIds() {
+        return stored("entity_id");
+    }
+
+    private List<Long> storedEventIds() {
+        return stored("id");
+    }
+
+    private List<Long> stored(String column) {
+        String sql = "SELECT " + column + " FROM events WHERE user_id = :userId ORDER BY id";
+        return namedParameterJdbcTemplate.queryForList(sql, Map.of("userId", userId), Long.class);
+    }
+
+}
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.storage.event;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.friend.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//лента в памяти меньше страницы таблицы, чтобы листание доходило до friend_feed
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:friend-feed;DB_CLOSE_DELAY=-1",
+        "filmorate.feed.inbox-capacity=3",
+        "filmorate.feed.retained-events=" + FriendFeedInboxTest.RETAINED
+})
+class FriendFeedInboxTest {
+
+    static final int RETAINED = 8;
+
+    @Autowired
+    private EventDbStorage eventDbStorage;
+    @Autowired
+    private UserDbStorage userDbStorage;
+    @Autowired
+    private FriendDbStorage friendDbStorage;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private Long authorId;
+    private Long readerId;
+
+    @BeforeEach
+    void setUp() {
+        authorId = userDbStorage.create(user("author")).getId();
+        readerId = userDbStorage.create(user("reader")).getId();
+        friendDbStorage.addFriend(readerId, authorId);
+    }
+
+    @Test
+    void pagesContinuePastTheInMemoryInbox() {
+        addEvents(6);
+
+        assertThat(readAllPages(2)).isEqualTo(timelineBySql());
+        assertThat(readAllPages(2)).hasSize(6);
+    }
+
+    @Test
+    void tableKeepsRetainedEventsPerReader() {
+        addEvents(RETAINED + 4);
+
+        List<Long> pages = readAllPages(3);
+
+        assertThat(pages).hasSize(RETAINED);
+        assertThat(pages).isEqualTo(timelineBySql().subList(0, RETAINED));
+        assertThat(namedParameterJdbcTemplate.queryForObject("SELECT COUNT(*) FROM friend_feed WHERE user_id = :id",
+                Map.of("id", readerId), Integer.class)).isEqualTo(RETAINED);
+    }
+
+    @Test
+    void unfollowRemovesFormerFriendEvents() {
+        addEvents(4);
+        assertThat(readAllPages(2)).hasSize(4);
+
+        friendDbStorage.deleteFriend(readerId, authorId);
+
+        assertThat(readAllPages(2)).isEmpty();
+    }
+
+    private void addEvents(int count) {
+        for (long entityId = 1; entityId <= count; entityId++) {
+            eventDbStorage.add(authorId, entityId, "films", "ADD", "LIKE");
+        }
+    }
+
+    private List<Long> readAllPages(int limit) {
+        List<Long> ids = new ArrayList<>();
+        Long before = null;
+        while (true) {
+            List<Event> page = eventDbStorage.getFriendsTimeline(readerId, before, limit);
+            page.forEach(event -> ids.add(event.getEventId()));
+            if (page.size() < limit) {
+                return ids;
+            }
+            before = page.getLast().getEventId();
+        }
+    }
+
+    private List<Long> timelineBySql() {
+        String sql = """
+                SELECT e.id
+                FROM events e
+                WHERE e.user_id IN (SELECT friend_id FROM friends WHERE user_id = :id)
+                ORDER BY e.id DESC
+                """;
+        return namedParameterJdbcTemplate.queryForList(sql, Map.of("id", readerId), Long.class);
+    }
+
+    private static User user(String role) {
+        String login = role + System.nanoTime();
+        return User.builder()
+                .email(login + "@example.com")
+                .login(login)
+                .name("Пользователь ленты")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+}
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.director.DirectorDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:film-cache;DB_CLOSE_DELAY=-1")
+class FilmCacheTest {
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+    @Autowired
+    private DirectorDbStorage directorDbStorage;
+    @Autowired
+    private FilmCache filmCache;
+
+    @Test
+    void directorRenameEvictsCachedFilms() {
+        Director director = directorDbStorage.create(Director.builder().name("Кэш: переименование").build());
+        Film film = filmDbStorage.create(film("Фильм режиссера", director));
+        filmDbStorage.getFilm(film.getId());
+        assertThat(filmCache.get(film.getId())).isPresent();
+
+        directorDbStorage.update(director.toBuilder().name("Кэш: новое имя").build());
+
+        assertThat(filmCache.get(film.getId())).isEmpty();
+        assertThat(filmDbStorage.getFilm(film.getId()).getDirectors())
+                .extracting(Director::getName)
+                .containsExactly("Кэш: новое имя");
+    }
+
+    @Test
+    void directorDeleteEvictsCachedFilms() {
+        Director director = directorDbStorage.create(Director.builder().name("Кэш: удаление").build());
+        Film film = filmDbStorage.create(film("Фильм удаленного режиссера", director));
+        filmDbStorage.getFilm(film.getId());
+        assertThat(filmCache.get(film.getId())).isPresent();
+
+        directorDbStorage.deleteById(director.getId());
+
+        assertThat(filmCache.get(film.getId())).isEmpty();
+        assertThat(filmDbStorage.getFilm(film.getId()).getDirectors()).isEmpty();
+    }
+
+    @Test
+    void updateReturnsAndCachesNewFilm() {
+        Director director = directorDbStorage.create(Director.builder().name("Кэш: обновление").build());
+        Film film = filmDbStorage.create(film("Фильм до обновления", director));
+        filmDbStorage.getFilm(film.getId());
+        assertThat(filmCache.get(film.getId())).isPresent();
+
+        Film updated = filmDbStorage.update(film.toBuilder().name("Фильм после обновления").build());
+
+        assertThat(updated.getName()).isEqualTo("Фильм после обновления");
+        assertThat(filmCache.get(film.getId())).isEmpty();
+        assertThat(filmDbStorage.getFilm(film.getId()).getName()).isEqualTo("Фильм после обновления");
+    }
+
+    @Test
+    void loadOverlappingEvictionIsNotCached() {
+        Director director = directorDbStorage.create(Director.builder().name("Кэш: гонка").build());
+        Film film = filmDbStorage.create(film("Фильм под сбросом", director));
+        long stamp = filmCache.stamp();
+        Film loaded = filmDbStorage.getFilm(film.getId());
+        filmCache.evict(film.getId());
+
+        filmCache.put(loaded, stamp);
+
+        assertThat(filmCache.get(film.getId())).isEmpty();
+    }
+
+    private static Film film(String name, Director director) {
+        return Film.builder()
+                .name(name)
+                .description("Описание")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(Mpa.builder().id(1L).build())
+                .genres(new ArrayList<>())
+                .directors(new ArrayList<>(List.of(director)))
+                .build();
+    }
+
+}
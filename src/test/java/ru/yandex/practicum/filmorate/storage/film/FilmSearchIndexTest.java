@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.director.DirectorDbStorage;
+import ru.yandex.practicum.filmorate.storage.likes.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:film-search;DB_CLOSE_DELAY=-1")
+class FilmSearchIndexTest {
+
+    //запросы короче триграммы, ровно триграмма и длиннее, в том числе без совпадений
+    private static final List<String> QUERIES = List.of("", "a", "о", " ", "x", "st", "ан", "zz", "sta", "ночь",
+            "Star", "ight", "r w", "ночной", "Кубрик", "ick");
+
+    @Autowired
+    private FilmSearchIndex filmSearchIndex;
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+    @Autowired
+    private DirectorDbStorage directorDbStorage;
+    @Autowired
+    private UserDbStorage userDbStorage;
+    @Autowired
+    private LikeDbStorage likeDbStorage;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Test
+    void searchMatchesSqlSubstringSearchAfterChanges() {
+        Director kubrick = directorDbStorage.create(Director.builder().name("Стэнли Кубрик").build());
+        Director nolan = directorDbStorage.create(Director.builder().name("Christopher Nolan").build());
+        List<Film> films = new ArrayList<>();
+        films.add(filmDbStorage.create(film("Star Wars", kubrick)));
+        films.add(filmDbStorage.create(film("Ночь в музее", nolan)));
+        films.add(filmDbStorage.create(film("Starlight", null)));
+        films.add(filmDbStorage.create(film("Ночной дозор", kubrick)));
+        films.add(filmDbStorage.create(film("A", nolan)));
+        Long userId = userDbStorage.create(User.builder()
+                .email("search@example.com")
+                .login("search")
+                .name("Зритель")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build()).getId();
+        likeDbStorage.like(films.get(2).getId(), userId);
+        assertMatchesSql();
+
+        filmDbStorage.update(films.get(0).toBuilder().name("Star Trek").build());
+        directorDbStorage.update(nolan.toBuilder().name("Кристофер Нолан").build());
+        filmDbStorage.deleteById(films.get(3).getId());
+
+        assertMatchesSql();
+
+        directorDbStorage.deleteById(kubrick.getId());
+
+        assertMatchesSql();
+    }
+
+    private void assertMatchesSql() {
+        for (String query : QUERIES) {
+            assertThat(filmSearchIndex.search(query, true, false))
+                    .as("название: '%s'", query)
+                    .isEqualTo(searchBySql(query, true, false));
+            assertThat(filmSearchIndex.search(query, false, true))
+                    .as("режиссер: '%s'", query)
+                    .isEqualTo(searchBySql(query, false, true));
+            assertThat(filmSearchIndex.search(query, true, true))
+                    .as("название и режиссер: '%s'", query)
+                    .isEqualTo(searchBySql(query, true, true));
+        }
+    }
+
+    private List<Long> searchBySql(String query, boolean byTitle, boolean byDirector) {
+        List<String> conditions = new ArrayList<>();
+        if (byTitle) {
+            conditions.add("LOWER(f.name) LIKE :pattern");
+        }
+        if (byDirector) {
+            conditions.add("""
+                    EXISTS (SELECT 1
+                            FROM directors_films df
+                            JOIN directors d ON d.id = df.director_id
+                            WHERE df.film_id = f.id AND LOWER(d.name) LIKE :pattern)
+                    """);
+        }
+        String sql = "SELECT f.id FROM films f WHERE " + String.join(" OR ", conditions)
+                + " ORDER BY (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id) DESC, f.id";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("pattern", "%" + query.toLowerCase(Locale.ROOT) + "%");
+        return namedParameterJdbcTemplate.queryForList(sql, params, Long.class);
+    }
+
+    private static Film film(String name, Director director) {
+        return Film.builder()
+                .name(name)
+                .description("Описание")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(Mpa.builder().id(1L).build())
+                .genres(new ArrayList<>())
+                .directors(director == null ? new ArrayList<>() : new ArrayList<>(List.of(director)))
+                .build();
+    }
+
+}
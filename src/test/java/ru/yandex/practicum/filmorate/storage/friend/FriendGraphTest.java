@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.storage.friend;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:friend-graph;DB_CLOSE_DELAY=-1")
+class FriendGraphTest {
+
+    private static final int USERS = 10;
+
+    @Autowired
+    private UserDbStorage userDbStorage;
+    @Autowired
+    private FriendDbStorage friendDbStorage;
+    @Autowired
+    private FriendGraph friendGraph;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Test
+    void commonFriendsMatchSqlAfterAddsRemovesAndUserDelete() {
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(userDbStorage.create(User.builder()
+                    .email("friends" + i + "@example.com")
+                    .login("friends" + i)
+                    .name("Друг " + i)
+                    .birthday(LocalDate.of(1990, 1, 1))
+                    .build()).getId());
+        }
+        Set<List<Long>> friendships = new HashSet<>();
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 120; i++) {
+            Long userId = users.get(random.nextInt(USERS));
+            Long friendId = users.get(random.nextInt(USERS));
+            if (userId.equals(friendId)) {
+                continue;
+            }
+            List<Long> friendship = List.of(userId, friendId);
+            if (friendships.remove(friendship)) {
+                friendDbStorage.deleteFriend(userId, friendId);
+            } else {
+                friendships.add(friendship);
+                friendDbStorage.addFriend(userId, friendId);
+            }
+        }
+        assertMatchesSql(users);
+
+        userDbStorage.deleteById(users.get(0));
+
+        assertMatchesSql(users.subList(1, USERS));
+    }
+
+    private void assertMatchesSql(List<Long> users) {
+        for (Long userId : users) {
+            assertThat(friendGraph.friends(userId))
+                    .as("друзья %s", userId)
+                    .containsExactly(bySql("SELECT friend_id FROM friends WHERE user_id = :id ORDER BY friend_id",
+                            userId));
+            assertThat(friendGraph.followers(userId))
+                    .as("подписчики %s", userId)
+                    .containsExactly(bySql("SELECT user_id FROM friends WHERE friend_id = :id ORDER BY user_id",
+                            userId));
+            for (Long otherId : users) {
+                long[] common = commonBySql(userId, otherId);
+                assertThat(friendGraph.commonFriends(userId, otherId))
+                        .as("общие друзья %s и %s", userId, otherId)
+                        .containsExactly(common);
+                assertThat(friendDbStorage.findCommonFriends(userId, otherId))
+                        .extracting(User::getId)
+                        .containsExactlyElementsOf(Arrays.stream(common).boxed().toList());
+            }
+        }
+    }
+
+    private long[] bySql(String sql, Long id) {
+        return namedParameterJdbcTemplate.queryForList(sql, Map.of("id", id), Long.class).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    private long[] commonBySql(Long userId, Long otherId) {
+        String sql = """
+                SELECT f1.friend_id
+                FROM friends f1
+                JOIN friends f2 ON f1.friend_id = f2.friend_id
+                WHERE f1.user_id = :userId AND f2.user_id = :otherId
+                ORDER BY f1.friend_id
+                """;
+        return namedParameterJdbcTemplate.queryForList(sql, Map.of("userId", userId, "otherId", otherId), Long.class)
+                .stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+}
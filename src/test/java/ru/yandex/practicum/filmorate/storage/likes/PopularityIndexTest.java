@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.storage.likes;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:popularity;DB_CLOSE_DELAY=-1")
+class PopularityIndexTest {
+
+    private static final int FILMS = 12;
+    private static final int USERS = 8;
+    private static final List<Integer> YEARS = List.of(2000, 2001, 2002);
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+    @Autowired
+    private UserDbStorage userDbStorage;
+    @Autowired
+    private LikeDbStorage likeDbStorage;
+    @Autowired
+    private PopularityIndex popularityIndex;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Test
+    void topMatchesSqlAfterLikesUnlikesAndDeletes() {
+        List<Long> films = new ArrayList<>();
+        for (int i = 0; i < FILMS; i++) {
+            films.add(filmDbStorage.create(film(i)).getId());
+        }
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(userDbStorage.create(user("popularity" + i)).getId());
+        }
+        Set<List<Long>> liked = new HashSet<>();
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < 100; i++) {
+            List<Long> like = List.of(films.get(random.nextInt(FILMS)), users.get(random.nextInt(USERS)));
+            if (liked.remove(like)) {
+                likeDbStorage.removeLike(like.get(0), like.get(1));
+            } else {
+                liked.add(like);
+                likeDbStorage.like(like.get(0), like.get(1));
+            }
+        }
+        assertMatchesSql();
+
+        filmDbStorage.deleteById(films.get(0));
+        userDbStorage.deleteById(users.get(0));
+
+        assertMatchesSql();
+    }
+
+    private void assertMatchesSql() {
+        List<Long> genres = Arrays.asList(null, 1L, 2L, 3L, 4L);
+        List<Integer> years = new ArrayList<>(YEARS);
+        years.add(null);
+        for (Long genreId : genres) {
+            for (Integer year : years) {
+                assertThat(popularityIndex.top(genreId, year, Integer.MAX_VALUE))
+                        .as("жанр %s, год %s", genreId, year)
+                        .isEqualTo(topBySql(genreId, year));
+            }
+        }
+    }
+
+    private List<Long> topBySql(Long genreId, Integer year) {
+        StringBuilder sql = new StringBuilder("SELECT f.id FROM films f WHERE TRUE");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (Objects.nonNull(genreId)) {
+            sql.append(" AND EXISTS (SELECT 1 FROM genres_films gf")
+                    .append(" WHERE gf.film_id = f.id AND gf.genre_id = :genreId)");
+            params.addValue("genreId", genreId);
+        }
+        if (Objects.nonNull(year)) {
+            sql.append(" AND EXTRACT(YEAR FROM f.release) = :year");
+            params.addValue("year", year);
+        }
+        sql.append(" ORDER BY (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id) DESC, f.id");
+        return namedParameterJdbcTemplate.queryForList(sql.toString(), params, Long.class);
+    }
+
+    private static Film film(int i) {
+        return Film.builder()
+                .name("Популярный " + i)
+                .description("Описание")
+                .releaseDate(LocalDate.of(YEARS.get(i % YEARS.size()), 1, 1))
+                .duration(100)
+                .mpa(Mpa.builder().id(1L).build())
+                .genres(new ArrayList<>(List.of(Genre.builder().id((long) i % 4 + 1).build())))
+                .directors(new ArrayList<>())
+                .build();
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .email(login + "@example.com")
+                .login(login)
+                .name("Зритель")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.storage.likes;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:recommendations;DB_CLOSE_DELAY=-1",
+        "filmorate.recommendations.similar-users=" + RecommendationEngineTest.SIMILAR_USERS
+})
+class RecommendationEngineTest {
+
+    static final int SIMILAR_USERS = 2;
+    private static final int FILMS = 15;
+    private static final int USERS = 10;
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+    @Autowired
+    private UserDbStorage userDbStorage;
+    @Autowired
+    private LikeDbStorage likeDbStorage;
+    @Autowired
+    private RecommendationEngine recommendationEngine;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Test
+    void recommendationsMatchSqlAfterLikesUnlikesAndDeletes() {
+        List<Long> films = new ArrayList<>();
+        for (int i = 0; i < FILMS; i++) {
+            films.add(filmDbStorage.create(film(i)).getId());
+        }
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(userDbStorage.create(user("recommendations" + i)).getId());
+        }
+        Set<List<Long>> liked = new HashSet<>();
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < 150; i++) {
+            List<Long> like = List.of(films.get(random.nextInt(FILMS)), users.get(random.nextInt(USERS)));
+            if (liked.remove(like)) {
+                likeDbStorage.removeLike(like.get(0), like.get(1));
+            } else {
+                liked.add(like);
+                likeDbStorage.like(like.get(0), like.get(1));
+            }
+        }
+        assertMatchesSql(users);
+
+        filmDbStorage.deleteById(films.get(0));
+        userDbStorage.deleteById(users.get(0));
+
+        assertMatchesSql(users.subList(1, USERS));
+    }
+
+    private void assertMatchesSql(List<Long> users) {
+        for (Long userId : users) {
+            assertThat(recommendationEngine.likedFilms(userId).toArray())
+                    .as("лайки пользователя %s", userId)
+                    .containsExactly(likedBySql(userId).stream().mapToInt(Long::intValue).toArray());
+            assertThat(recommendationEngine.recommend(userId))
+                    .as("рекомендации пользователю %s", userId)
+                    .isEqualTo(recommendBySql(userId));
+        }
+    }
+
+    private List<Long> likedBySql(Long userId) {
+        return namedParameterJdbcTemplate.queryForList(
+                "SELECT film_id FROM likes WHERE user_id = :userId ORDER BY film_id", Map.of("userId", userId),
+                Long.class);
+    }
+
+    //похожие - больше всего общих лайков, при равенстве меньший id; рекомендуются их фильмы без своих
+    private List<Long> recommendBySql(Long userId) {
+        String similarSql = """
+                SELECT other.user_id
+                FROM likes own
+                JOIN likes other ON other.film_id = own.film_id AND other.user_id <> own.user_id
+                WHERE own.user_id = :userId
+                GROUP BY other.user_id
+                ORDER BY COUNT(*) DESC, other.user_id
+                LIMIT :limit
+                """;
+        List<Long> similar = namedParameterJdbcTemplate.queryForList(similarSql,
+                Map.of("userId", userId, "limit", SIMILAR_USERS), Long.class);
+        if (similar.isEmpty()) {
+            return List.of();
+        }
+        String sql = """
+                SELECT DISTINCT film_id
+                FROM likes
+                WHERE user_id IN (:similar)
+                AND film_id NOT IN (SELECT film_id FROM likes WHERE user_id = :userId)
+                ORDER BY film_id
+                """;
+        return namedParameterJdbcTemplate.queryForList(sql, Map.of("similar", similar, "userId", userId),
+                Long.class);
+    }
+
+    private static Film film(int i) {
+        return Film.builder()
+                .name("Рекомендуемый " + i)
+                .description("Описание")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(Mpa.builder().id(1L).build())
+                .genres(new ArrayList<>())
+                .directors(new ArrayList<>())
+                .build();
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .email(login + "@example.com")
+                .login(login)
+                .name("Зритель")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.storage.review;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:review-useful;DB_CLOSE_DELAY=-1")
+class ReviewUsefulTest {
+
+    private static final int REVIEWS = 5;
+    private static final int USERS = 6;
+
+    @Autowired
+    private ReviewDbStorage reviewDbStorage;
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+    @Autowired
+    private UserDbStorage userDbStorage;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Test
+    void usefulMatchesSumOfRatingsAfterEveryChange() {
+        Long filmId = filmDbStorage.create(Film.builder()
+                .name("Фильм с отзывами")
+                .description("Описание")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(Mpa.builder().id(1L).build())
+                .genres(new ArrayList<>())
+                .directors(new ArrayList<>())
+                .build()).getId();
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(userDbStorage.create(User.builder()
+                    .email("reviewer" + i + "@example.com")
+                    .login("reviewer" + i)
+                    .name("Рецензент " + i)
+                    .birthday(LocalDate.of(1990, 1, 1))
+                    .build()).getId());
+        }
+        List<Long> reviews = new ArrayList<>();
+        for (int i = 0; i < REVIEWS; i++) {
+            reviews.add(reviewDbStorage.create(Review.builder()
+                    .content("Отзыв " + i)
+                    .isPositive(i % 2 == 0)
+                    .userId(users.get(i % USERS))
+                    .filmId(filmId)
+                    .build()).getReviewId());
+        }
+        SplittableRandom random = new SplittableRandom(13);
+        for (int i = 0; i < 80; i++) {
+            Long userId = users.get(random.nextInt(USERS));
+            Long reviewId = reviews.get(random.nextInt(REVIEWS));
+            int rating = random.nextBoolean() ? 1 : -1;
+            //удаление оценки с другим знаком ничего не меняет, это тоже проверяется
+            if (random.nextInt(3) == 0) {
+                reviewDbStorage.deleteRating(userId, reviewId, rating);
+            } else {
+                reviewDbStorage.setRating(userId, reviewId, rating);
+            }
+            assertMatchesSql(filmId);
+        }
+
+        userDbStorage.deleteById(users.get(0));
+
+        assertMatchesSql(filmId);
+    }
+
+    private void assertMatchesSql(Long filmId) {
+        String sql = """
+                SELECT r.id, COALESCE(SUM(rl.rating), 0) AS rating_sum
+                FROM reviews r
+                LEFT JOIN review_likes rl ON rl.review_id = r.id
+                WHERE r.film_id = :filmId
+                GROUP BY r.id
+                ORDER BY rating_sum DESC, r.id
+                """;
+        List<List<Long>> expected = namedParameterJdbcTemplate.query(sql, Map.of("filmId", filmId),
+                (rs, rowNum) -> List.of(rs.getLong("id"), rs.getLong("rating_sum")));
+        assertThat(reviewDbStorage.getReviews(filmId, Integer.MAX_VALUE))
+                .extracting(review -> List.of(review.getReviewId(), review.getUseful().longValue()))
+                .isEqualTo(expected);
+    }
+
+}